@@ -0,0 +1,65 @@
+package com.algaworks.algashop.ordering.domain.model.validator;
+
+import com.algaworks.algashop.ordering.domain.model.valueobject.Address;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Document;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Email;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Phone;
+import com.algaworks.algashop.ordering.domain.model.valueobject.ZipCode;
+import org.apache.commons.validator.routines.EmailValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Run with ./gradlew jmh. Compare commonsEmailValidator with fieldValidationsEmail for
+ * throughput and gc.alloc.rate.norm. The "odd" email takes the commons-validator fallback.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FieldValidationsBenchmark {
+
+    @Param({"john.doe+orders@email.com.br", "johndoe@[192.168.0.1]"})
+    private String email;
+
+    private String phone = "478-256-2604";
+    private String document = "255-08-0578";
+    private String zipCode = "79911";
+
+    @Benchmark
+    public boolean commonsEmailValidator() {
+        return EmailValidator.getInstance().isValid(email);
+    }
+
+    @Benchmark
+    public boolean fieldValidationsEmail() {
+        FieldValidations.requiresValidEmail(email);
+        return true;
+    }
+
+    @Benchmark
+    public Email emailValueObject() {
+        return new Email(email);
+    }
+
+    @Benchmark
+    public Object[] contactValueObjects() {
+        return new Object[]{new Phone(phone), new Document(document), new ZipCode(zipCode)};
+    }
+
+    @Benchmark
+    public Address addressValueObject() {
+        return Address.builder()
+                .street("Bourbon Street")
+                .number("1134")
+                .neighborhood("North Ville")
+                .city("York")
+                .state("South California")
+                .zipCode(new ZipCode(zipCode))
+                .build();
+    }
+
+}
@@ -0,0 +1,85 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.disassembler;
+
+import com.algaworks.algashop.ordering.domain.model.entity.CustomerTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.entity.OrderStatus;
+import com.algaworks.algashop.ordering.domain.model.entity.OrderTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
+import com.algaworks.algashop.ordering.infrastructure.persistence.assembler.CustomerPersistenceEntityAssembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.assembler.OrderPersistenceEntityAssembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.entity.CustomerPersistenceEntity;
+import com.algaworks.algashop.ordering.infrastructure.persistence.entity.OrderPersistenceEntity;
+import com.algaworks.algashop.ordering.infrastructure.persistence.repository.CustomerPersistenceEntityRepository;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Run with ./gradlew jmh. Each operation hydrates 100k customers or 100k orders (with items,
+ * shipping and billing) from already loaded persistence entities, once with trusted hydration
+ * and once in a fork that disables it, so the difference is the skipped re-validation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class HydrationBenchmark {
+
+    private static final int AGGREGATES = 100_000;
+    private static final String VALIDATING = "-Dalgashop.domain.trusted-hydration.disabled=true";
+
+    private final CustomerPersistenceEntityDisassembler customerDisassembler = new CustomerPersistenceEntityDisassembler();
+    private final OrderPersistenceEntityDisassembler orderDisassembler = new OrderPersistenceEntityDisassembler();
+
+    private List<CustomerPersistenceEntity> customers;
+    private List<OrderPersistenceEntity> orders;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        CustomerPersistenceEntityAssembler customerAssembler = new CustomerPersistenceEntityAssembler();
+        customers = new ArrayList<>(AGGREGATES);
+        for (int i = 0; i < AGGREGATES; i++) {
+            customers.add(customerAssembler.fromDomain(
+                    CustomerTestDataBuilder.existingCustomer().id(new CustomerId()).build()));
+        }
+
+        CustomerPersistenceEntityRepository customerRepository = Mockito.mock(CustomerPersistenceEntityRepository.class);
+        Mockito.when(customerRepository.getReferenceById(Mockito.any())).thenAnswer(invocation ->
+                CustomerPersistenceEntity.builder().id(invocation.getArgument(0, UUID.class)).build());
+        OrderPersistenceEntityAssembler orderAssembler = new OrderPersistenceEntityAssembler(customerRepository);
+        orders = new ArrayList<>(AGGREGATES);
+        for (int i = 0; i < AGGREGATES; i++) {
+            orders.add(orderAssembler.fromDomain(OrderTestDataBuilder.anOrder().status(OrderStatus.PLACED).build()));
+        }
+    }
+
+    @Benchmark
+    @Fork(1)
+    public void trustedCustomers(Blackhole blackhole) {
+        customers.forEach(customer -> blackhole.consume(customerDisassembler.toDomainEntity(customer)));
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = VALIDATING)
+    public void validatingCustomers(Blackhole blackhole) {
+        customers.forEach(customer -> blackhole.consume(customerDisassembler.toDomainEntity(customer)));
+    }
+
+    @Benchmark
+    @Fork(1)
+    public void trustedOrders(Blackhole blackhole) {
+        orders.forEach(order -> blackhole.consume(orderDisassembler.toDomainEntity(order)));
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = VALIDATING)
+    public void validatingOrders(Blackhole blackhole) {
+        orders.forEach(order -> blackhole.consume(orderDisassembler.toDomainEntity(order)));
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.query;
+
+import com.algaworks.algashop.ordering.OrderingApplication;
+import com.algaworks.algashop.ordering.application.OrderQueryService;
+import com.algaworks.algashop.ordering.application.OrderSummary;
+import com.algaworks.algashop.ordering.domain.model.entity.CustomerTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.entity.Order;
+import com.algaworks.algashop.ordering.domain.model.entity.OrderStatus;
+import com.algaworks.algashop.ordering.domain.model.entity.OrderTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.repository.Customers;
+import com.algaworks.algashop.ordering.domain.model.repository.Orders;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Run with ./gradlew jmh. The gc profiler reports gc.alloc.rate.norm per operation,
+ * divide it by orderCount to get the allocation per listed row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderListingBenchmark {
+
+    @Param({"100", "1000"})
+    private int orderCount;
+
+    private ConfigurableApplicationContext context;
+    private Orders orders;
+    private OrderQueryService orderQueryService;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(OrderingApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:listing-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.show-sql=false",
+                        "algashop.order.sales-summary.verify-on-startup=false"
+                )
+                .run();
+
+        orders = context.getBean(Orders.class);
+        orderQueryService = context.getBean(OrderQueryService.class);
+        Customers customers = context.getBean(Customers.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        transactionTemplate.setReadOnly(false);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            customers.add(CustomerTestDataBuilder.existingCustomer().build());
+            List<Order> placed = new ArrayList<>(orderCount);
+            for (int i = 0; i < orderCount; i++) {
+                placed.add(OrderTestDataBuilder.anOrder().status(OrderStatus.PLACED).build());
+            }
+            orders.addAll(placed);
+        });
+
+        transactionTemplate.setReadOnly(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Order> fullAggregate() {
+        return transactionTemplate.execute(status ->
+                orders.placedByCustomerInYear(CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID, Year.now()));
+    }
+
+    @Benchmark
+    public List<OrderSummary> summaryProjection() {
+        return transactionTemplate.execute(status ->
+                orderQueryService.placedByCustomerInYear(CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID, Year.now()));
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.algaworks.algashop.ordering.application;
+
+import com.algaworks.algashop.ordering.domain.model.entity.AggregateRoot;
+import com.algaworks.algashop.ordering.domain.model.exception.AggregateNotFoundException;
+import com.algaworks.algashop.ordering.domain.model.repository.Repository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@Component
+public class AggregateCommandExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+
+    public AggregateCommandExecutor(PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${algashop.command.retry.max-attempts:5}") int maxAttempts,
+                                    @Value("${algashop.command.retry.initial-backoff:10ms}") Duration initialBackoff,
+                                    @Value("${algashop.command.retry.max-backoff:200ms}") Duration maxBackoff) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    public <A extends AggregateRoot<ID>, ID> void execute(Repository<A, ID> repository, ID id, Consumer<A> command) {
+        call(repository, id, aggregateRoot -> {
+            command.accept(aggregateRoot);
+            return null;
+        });
+    }
+
+    public <A extends AggregateRoot<ID>, ID, R> R call(Repository<A, ID> repository, ID id, Function<A, R> command) {
+        String[] aggregateType = {"unknown"};
+        for (int attempt = 1; ; attempt++) {
+            try {
+                R result = transactionTemplate.execute(status -> {
+                    A aggregateRoot = repository.ofId(id).orElseThrow(() -> new AggregateNotFoundException(id));
+                    aggregateType[0] = aggregateRoot.getClass().getSimpleName();
+                    R commandResult = command.apply(aggregateRoot);
+                    repository.add(aggregateRoot);
+                    return commandResult;
+                });
+                counter("algashop.aggregate.command.executions", aggregateType[0]).increment();
+                return result;
+            } catch (OptimisticLockingFailureException e) {
+                counter("algashop.aggregate.command.conflicts", aggregateType[0]).increment();
+                if (attempt >= maxAttempts) {
+                    counter("algashop.aggregate.command.give_ups", aggregateType[0]).increment();
+                    throw e;
+                }
+                counter("algashop.aggregate.command.retries", aggregateType[0]).increment();
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    private void backoff(int attempt, OptimisticLockingFailureException cause) {
+        long ceiling = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+
+    private Counter counter(String name, String aggregateType) {
+        return meterRegistry.counter(name, "aggregate", aggregateType);
+    }
+
+}
@@ -0,0 +1,171 @@
+package com.algaworks.algashop.ordering.application;
+
+import com.algaworks.algashop.ordering.domain.model.entity.Order;
+import com.algaworks.algashop.ordering.domain.model.repository.Orders;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.OrderId;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class OrderGroupCommitter {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final Orders orders;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration window;
+    private final int maxBatchSize;
+
+    private final BlockingQueue<PendingCommit> queue = new LinkedBlockingQueue<>();
+    private final List<PendingCommit> deferred = new ArrayList<>();
+    private volatile boolean running;
+    private Thread dispatcher;
+
+    public OrderGroupCommitter(Orders orders,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${algashop.order.group-commit.window:5ms}") Duration window,
+                               @Value("${algashop.order.group-commit.max-batch-size:50}") int maxBatchSize,
+                               @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int jdbcBatchSize) {
+        this.orders = orders;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.window = window;
+        this.maxBatchSize = Math.max(1, Math.min(maxBatchSize, jdbcBatchSize));
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        dispatcher = Thread.ofPlatform().name("order-group-commit").daemon().start(this::dispatch);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.join();
+        }
+    }
+
+    public CompletableFuture<Void> commit(Order order) {
+        Objects.requireNonNull(order);
+        PendingCommit pendingCommit = new PendingCommit(order, order.version(), new CompletableFuture<>());
+        if (!running) {
+            writeIndividually(pendingCommit);
+            return pendingCommit.result();
+        }
+        queue.add(pendingCommit);
+        return pendingCommit.result();
+    }
+
+    private void dispatch() {
+        while (running || !queue.isEmpty() || !deferred.isEmpty()) {
+            try {
+                List<PendingCommit> batch = nextBatch();
+                if (!batch.isEmpty()) {
+                    write(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private List<PendingCommit> nextBatch() throws InterruptedException {
+        List<PendingCommit> batch = new ArrayList<>();
+        Set<OrderId> orderIds = new HashSet<>();
+
+        List<PendingCommit> carried = new ArrayList<>(deferred);
+        deferred.clear();
+        for (PendingCommit pendingCommit : carried) {
+            gather(batch, orderIds, pendingCommit);
+        }
+
+        if (batch.isEmpty()) {
+            PendingCommit first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (first == null) {
+                return batch;
+            }
+            gather(batch, orderIds, first);
+        }
+
+        long deadline = System.nanoTime() + window.toNanos();
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            PendingCommit next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            gather(batch, orderIds, next);
+        }
+
+        return batch;
+    }
+
+    private void gather(List<PendingCommit> batch, Set<OrderId> orderIds, PendingCommit pendingCommit) {
+        if (batch.size() < maxBatchSize && orderIds.add(pendingCommit.order().id())) {
+            batch.add(pendingCommit);
+        } else {
+            deferred.add(pendingCommit);
+        }
+    }
+
+    private void write(List<PendingCommit> batch) {
+        if (batch.size() == 1) {
+            writeIndividually(batch.getFirst());
+            return;
+        }
+
+        try {
+            List<Order> batchOrders = batch.stream().map(PendingCommit::order).toList();
+            transactionTemplate.executeWithoutResult(status -> orders.addAll(batchOrders));
+            batch.forEach(pendingCommit -> pendingCommit.result().complete(null));
+        } catch (RuntimeException e) {
+            batch.forEach(pendingCommit -> writeAfterFailedGroup(pendingCommit, e));
+        }
+    }
+
+    /*
+     * The orders provider puts every aggregate written by a rolled-back transaction back to its version before
+     * the write, with its changes tracked again. An order whose version still differs would be skipped as unchanged
+     * by the fallback write, so its caller is told to reload it instead of being told it was saved.
+     */
+    private void writeAfterFailedGroup(PendingCommit pendingCommit, RuntimeException groupFailure) {
+        if (!Objects.equals(pendingCommit.order().version(), pendingCommit.version())) {
+            pendingCommit.result().completeExceptionally(new IllegalStateException(
+                    "Order " + pendingCommit.order().id() + " was left at version " + pendingCommit.order().version()
+                            + " by a failed group write, reload it and retry", groupFailure));
+            return;
+        }
+        writeIndividually(pendingCommit);
+    }
+
+    private void writeIndividually(PendingCommit pendingCommit) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> orders.add(pendingCommit.order()));
+            pendingCommit.result().complete(null);
+        } catch (RuntimeException e) {
+            pendingCommit.result().completeExceptionally(e);
+        }
+    }
+
+    private record PendingCommit(Order order, Long version, CompletableFuture<Void> result) {
+    }
+
+}
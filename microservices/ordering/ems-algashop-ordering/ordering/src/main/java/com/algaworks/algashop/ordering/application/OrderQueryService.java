@@ -0,0 +1,13 @@
+package com.algaworks.algashop.ordering.application;
+
+import com.algaworks.algashop.ordering.domain.model.repository.CursorPage;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.OrderId;
+
+import java.time.Year;
+import java.util.List;
+
+public interface OrderQueryService {
+    List<OrderSummary> placedByCustomerInYear(CustomerId customerId, Year year);
+    CursorPage<OrderSummary, OrderId> ofCustomer(CustomerId customerId, OrderId after, int limit);
+}
@@ -0,0 +1,11 @@
+package com.algaworks.algashop.ordering.application;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+public record OrderSummary(Long id,
+                           String status,
+                           BigDecimal totalAmount,
+                           Integer totalItems,
+                           OffsetDateTime placedAt) {
+}
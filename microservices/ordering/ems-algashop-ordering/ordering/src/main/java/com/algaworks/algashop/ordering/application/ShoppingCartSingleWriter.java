@@ -0,0 +1,155 @@
+package com.algaworks.algashop.ordering.application;
+
+import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCart;
+import com.algaworks.algashop.ordering.domain.model.exception.AggregateNotFoundException;
+import com.algaworks.algashop.ordering.domain.model.repository.ShoppingCarts;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.ShoppingCartId;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+@Component
+@ConditionalOnProperty(name = "algashop.shopping-cart.single-writer.enabled", havingValue = "true", matchIfMissing = true)
+public class ShoppingCartSingleWriter {
+
+    private final ShoppingCarts shoppingCarts;
+    private final AggregateCommandExecutor commandExecutor;
+    private final int maxBatchSize;
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConcurrentMap<ShoppingCartId, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public ShoppingCartSingleWriter(ShoppingCarts shoppingCarts,
+                                    AggregateCommandExecutor commandExecutor,
+                                    @Value("${algashop.shopping-cart.single-writer.max-batch-size:64}") int maxBatchSize) {
+        this.shoppingCarts = shoppingCarts;
+        this.commandExecutor = commandExecutor;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    public CompletableFuture<Void> submit(ShoppingCartId shoppingCartId, Consumer<ShoppingCart> mutation) {
+        return enqueue(shoppingCartId, mutation);
+    }
+
+    public CompletableFuture<Void> submit(CustomerId customerId, Consumer<ShoppingCart> mutation) {
+        Optional<ShoppingCartId> shoppingCartId;
+        try {
+            shoppingCartId = shoppingCarts.ofCustomer(customerId).map(ShoppingCart::id);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return shoppingCartId
+                .map(id -> enqueue(id, mutation))
+                .orElseGet(() -> CompletableFuture.failedFuture(new AggregateNotFoundException(customerId)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private CompletableFuture<Void> enqueue(ShoppingCartId key, Consumer<ShoppingCart> action) {
+        Mutation mutation = new Mutation(action, new CompletableFuture<>());
+        Mailbox mailbox = mailboxes.compute(key, (k, existing) -> {
+            Mailbox target = existing != null ? existing : new Mailbox(k);
+            target.queue.add(mutation);
+            return target;
+        });
+        schedule(mailbox);
+        return mutation.result();
+    }
+
+    private void schedule(Mailbox mailbox) {
+        if (mailbox.scheduled.compareAndSet(false, true)) {
+            workers.execute(() -> drain(mailbox));
+        }
+    }
+
+    private void drain(Mailbox mailbox) {
+        try {
+            List<Mutation> batch = new ArrayList<>();
+            Mutation mutation;
+            while (batch.size() < maxBatchSize && (mutation = mailbox.queue.poll()) != null) {
+                batch.add(mutation);
+            }
+            if (!batch.isEmpty()) {
+                apply(mailbox.key, batch);
+            }
+        } finally {
+            mailbox.scheduled.set(false);
+            if (!mailbox.queue.isEmpty()) {
+                schedule(mailbox);
+            } else {
+                mailboxes.computeIfPresent(mailbox.key, (k, existing) ->
+                        existing == mailbox && existing.queue.isEmpty() && !existing.scheduled.get() ? null : existing);
+            }
+        }
+    }
+
+    /*
+     * The whole batch runs against one loaded cart and is saved once. When the save hits an optimistic-lock
+     * conflict, the command executor reloads the cart and runs every mutation of the batch again, so mutations
+     * must only touch the cart they are given. A mutation that throws may already have changed the cart, so it
+     * fails alone and the rest of the batch runs again on a freshly loaded cart without it.
+     */
+    private void apply(ShoppingCartId shoppingCartId, List<Mutation> batch) {
+        List<Mutation> remaining = new ArrayList<>(batch);
+        while (!remaining.isEmpty()) {
+            try {
+                commandExecutor.execute(shoppingCarts, shoppingCartId, shoppingCart -> {
+                    for (Mutation mutation : remaining) {
+                        try {
+                            mutation.action().accept(shoppingCart);
+                        } catch (RuntimeException e) {
+                            throw new MutationFailedException(mutation, e);
+                        }
+                    }
+                });
+                remaining.forEach(mutation -> mutation.result().complete(null));
+                return;
+            } catch (MutationFailedException e) {
+                e.mutation().result().completeExceptionally(e.getCause());
+                remaining.remove(e.mutation());
+            } catch (RuntimeException e) {
+                remaining.forEach(mutation -> mutation.result().completeExceptionally(e));
+                return;
+            }
+        }
+    }
+
+    private record Mutation(Consumer<ShoppingCart> action, CompletableFuture<Void> result) {
+    }
+
+    private static final class MutationFailedException extends RuntimeException {
+        private final transient Mutation mutation;
+
+        private MutationFailedException(Mutation mutation, RuntimeException cause) {
+            super(cause);
+            this.mutation = mutation;
+        }
+
+        private Mutation mutation() {
+            return mutation;
+        }
+    }
+
+    private static final class Mailbox {
+        private final ShoppingCartId key;
+        private final Queue<Mutation> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Mailbox(ShoppingCartId key) {
+            this.key = key;
+        }
+    }
+
+}
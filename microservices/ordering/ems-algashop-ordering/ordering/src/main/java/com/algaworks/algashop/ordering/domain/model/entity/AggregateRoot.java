@@ -2,4 +2,6 @@ package com.algaworks.algashop.ordering.domain.model.entity;
 
 public interface AggregateRoot<ID> {
     ID id();
+    Long version();
+    ChangeTracker<?, ?> changes();
 }
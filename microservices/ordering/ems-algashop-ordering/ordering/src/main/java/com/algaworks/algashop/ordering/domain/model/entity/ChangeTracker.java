@@ -0,0 +1,129 @@
+package com.algaworks.algashop.ordering.domain.model.entity;
+
+import java.util.*;
+
+public class ChangeTracker<F extends Enum<F>, I> {
+
+    private final EnumSet<F> dirtyFields;
+    private final Set<I> addedItems = new HashSet<>();
+    private final Set<I> changedItems = new HashSet<>();
+    private final Set<I> removedItems = new HashSet<>();
+
+    public ChangeTracker(Class<F> fieldType) {
+        this.dirtyFields = EnumSet.noneOf(fieldType);
+    }
+
+    void track(F field, Object oldValue, Object newValue) {
+        if (!Objects.equals(oldValue, newValue)) {
+            dirtyFields.add(field);
+        }
+    }
+
+    void itemAdded(I itemId) {
+        if (removedItems.remove(itemId)) {
+            changedItems.add(itemId);
+            return;
+        }
+        addedItems.add(itemId);
+    }
+
+    void itemChanged(I itemId) {
+        if (!addedItems.contains(itemId)) {
+            changedItems.add(itemId);
+        }
+    }
+
+    void itemRemoved(I itemId) {
+        if (addedItems.remove(itemId)) {
+            return;
+        }
+        changedItems.remove(itemId);
+        removedItems.add(itemId);
+    }
+
+    public boolean isDirty(F field) {
+        return dirtyFields.contains(field);
+    }
+
+    public Set<F> dirtyFields() {
+        return Collections.unmodifiableSet(dirtyFields);
+    }
+
+    public Set<I> addedItems() {
+        return Collections.unmodifiableSet(addedItems);
+    }
+
+    public Set<I> changedItems() {
+        return Collections.unmodifiableSet(changedItems);
+    }
+
+    public Set<I> removedItems() {
+        return Collections.unmodifiableSet(removedItems);
+    }
+
+    public boolean hasItemChanges() {
+        return !addedItems.isEmpty() || !changedItems.isEmpty() || !removedItems.isEmpty();
+    }
+
+    public boolean hasChanges() {
+        return !dirtyFields.isEmpty() || hasItemChanges();
+    }
+
+    public void restore(Set<F> dirtyFields, Set<I> addedItems, Set<I> changedItems, Set<I> removedItems) {
+        this.dirtyFields.addAll(dirtyFields);
+        this.addedItems.addAll(addedItems);
+        this.changedItems.addAll(changedItems);
+        this.removedItems.addAll(removedItems);
+    }
+
+    public void restore(Snapshot<F, I> written) {
+        Snapshot<F, I> combined = written.then(snapshot());
+        clear();
+        restore(combined.dirtyFields(), combined.addedItems(), combined.changedItems(), combined.removedItems());
+    }
+
+    public Snapshot<F, I> snapshot() {
+        return new Snapshot<>(Set.copyOf(dirtyFields), Set.copyOf(addedItems),
+                Set.copyOf(changedItems), Set.copyOf(removedItems));
+    }
+
+    public void clear() {
+        dirtyFields.clear();
+        addedItems.clear();
+        changedItems.clear();
+        removedItems.clear();
+    }
+
+    public record Snapshot<F, I>(Set<F> dirtyFields, Set<I> addedItems, Set<I> changedItems, Set<I> removedItems) {
+
+        public Snapshot<F, I> then(Snapshot<F, I> later) {
+            Set<F> fields = new HashSet<>(dirtyFields);
+            fields.addAll(later.dirtyFields());
+            Set<I> added = new HashSet<>(addedItems);
+            Set<I> changed = new HashSet<>(changedItems);
+            Set<I> removed = new HashSet<>(removedItems);
+
+            for (I itemId : later.removedItems()) {
+                if (!added.remove(itemId)) {
+                    changed.remove(itemId);
+                    removed.add(itemId);
+                }
+            }
+            for (I itemId : later.addedItems()) {
+                if (removed.remove(itemId)) {
+                    changed.add(itemId);
+                } else {
+                    added.add(itemId);
+                }
+            }
+            for (I itemId : later.changedItems()) {
+                if (!added.contains(itemId)) {
+                    changed.add(itemId);
+                }
+            }
+
+            return new Snapshot<>(fields, added, changed, removed);
+        }
+    }
+
+}
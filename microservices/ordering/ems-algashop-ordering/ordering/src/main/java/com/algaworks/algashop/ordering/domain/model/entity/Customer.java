@@ -12,6 +12,12 @@ import java.util.UUID;
 import static com.algaworks.algashop.ordering.domain.model.exception.ErrorMessages.*;
 
 public class Customer implements AggregateRoot<CustomerId> {
+
+    public enum Field {
+        FULL_NAME, BIRTH_DATE, EMAIL, PHONE, DOCUMENT, PROMOTION_NOTIFICATIONS_ALLOWED,
+        ARCHIVED, REGISTERED_AT, ARCHIVED_AT, LOYALTY_POINTS, ADDRESS
+    }
+
     private CustomerId id;
     private FullName fullName;
     private BirthDate birthDate;
@@ -27,6 +33,8 @@ public class Customer implements AggregateRoot<CustomerId> {
 
     private Long version;
 
+    private final ChangeTracker<Field, Void> changes = new ChangeTracker<>(Field.class);
+
     @Builder(builderClassName = "BrandNewCustomerBuild", builderMethodName = "brandNew")
     private static Customer createBrandNew(FullName fullName, BirthDate birthDate, Email email,
                                            Phone phone, Document document, Boolean promotionNotificationsAllowed,
@@ -63,6 +71,7 @@ public class Customer implements AggregateRoot<CustomerId> {
         this.setArchivedAt(archivedAt);
         this.setLoyaltyPoints(loyaltyPoints);
         this.setAddress(address);
+        this.changes.clear();
     }
 
     public void addLoyaltyPoints(LoyaltyPoints loyaltyPointsAdded) {
@@ -167,6 +176,11 @@ public class Customer implements AggregateRoot<CustomerId> {
         return version;
     }
 
+    @Override
+    public ChangeTracker<Field, Void> changes() {
+        return changes;
+    }
+
     public void setVersion(Long version) {
         this.version = version;
     }
@@ -178,10 +192,12 @@ public class Customer implements AggregateRoot<CustomerId> {
 
     private void setFullName(FullName fullName) {
         Objects.requireNonNull(fullName, VALIDATION_ERROR_FULLNAME_IS_NULL);
+        this.changes.track(Field.FULL_NAME, this.fullName, fullName);
         this.fullName = fullName;
     }
 
     private void setBirthDate(BirthDate birthDate) {
+        this.changes.track(Field.BIRTH_DATE, this.birthDate, birthDate);
         if (birthDate == null) {
             this.birthDate = null;
             return;
@@ -191,45 +207,54 @@ public class Customer implements AggregateRoot<CustomerId> {
 
     private void setEmail(Email email) {
         Objects.requireNonNull(email);
+        this.changes.track(Field.EMAIL, this.email, email);
         this.email = email;
     }
 
     private void setPhone(Phone phone) {
         Objects.requireNonNull(phone);
+        this.changes.track(Field.PHONE, this.phone, phone);
         this.phone = phone;
     }
 
     private void setDocument(Document document) {
         Objects.requireNonNull(document);
+        this.changes.track(Field.DOCUMENT, this.document, document);
         this.document = document;
     }
 
     private void setPromotionNotificationsAllowed(Boolean promotionNotificationsAllowed) {
         Objects.requireNonNull(promotionNotificationsAllowed);
+        this.changes.track(Field.PROMOTION_NOTIFICATIONS_ALLOWED, this.promotionNotificationsAllowed, promotionNotificationsAllowed);
         this.promotionNotificationsAllowed = promotionNotificationsAllowed;
     }
 
     private void setArchived(Boolean archived) {
         Objects.requireNonNull(archived);
+        this.changes.track(Field.ARCHIVED, this.archived, archived);
         this.archived = archived;
     }
 
     private void setRegisteredAt(OffsetDateTime registeredAt) {
         Objects.requireNonNull(registeredAt);
+        this.changes.track(Field.REGISTERED_AT, this.registeredAt, registeredAt);
         this.registeredAt = registeredAt;
     }
 
     private void setArchivedAt(OffsetDateTime archivedAt) {
+        this.changes.track(Field.ARCHIVED_AT, this.archivedAt, archivedAt);
         this.archivedAt = archivedAt;
     }
 
     private void setLoyaltyPoints(LoyaltyPoints loyaltyPoints) {
         Objects.requireNonNull(loyaltyPoints);
+        this.changes.track(Field.LOYALTY_POINTS, this.loyaltyPoints, loyaltyPoints);
         this.loyaltyPoints = loyaltyPoints;
     }
 
     private void setAddress(Address address) {
         Objects.requireNonNull(address);
+        this.changes.track(Field.ADDRESS, this.address, address);
         this.address = address;
     }
 
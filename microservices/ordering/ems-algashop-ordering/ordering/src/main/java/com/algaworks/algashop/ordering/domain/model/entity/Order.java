@@ -17,6 +17,11 @@ import java.util.Set;
 
 public class Order implements AggregateRoot<OrderId> {
 
+    public enum Field {
+        CUSTOMER_ID, TOTAL_AMOUNT, TOTAL_ITEMS, PLACED_AT, PAID_AT, CANCELED_AT, READY_AT,
+        BILLING, SHIPPING, STATUS, PAYMENT_METHOD
+    }
+
     private OrderId id;
     private CustomerId customerId;
 
@@ -38,6 +43,10 @@ public class Order implements AggregateRoot<OrderId> {
 
     private Long version;
 
+    private boolean itemsLoaded = true;
+
+    private final ChangeTracker<Field, OrderItemId> changes = new ChangeTracker<>(Field.class);
+
     @Builder(builderClassName = "ExistingOrderBuilder", builderMethodName = "existing")
     public Order(OrderId id, Long version, CustomerId customerId,
                  Money totalAmount, Quantity totalItems,
@@ -45,7 +54,7 @@ public class Order implements AggregateRoot<OrderId> {
                  OffsetDateTime canceledAt, OffsetDateTime readyAt,
                  Billing billing, Shipping shipping,
                  OrderStatus status, PaymentMethod paymentMethod,
-                 Set<OrderItem> items) {
+                 Set<OrderItem> items, Boolean itemsLoaded) {
         this.setId(id);
         this.setVersion(version);
         this.setCustomerId(customerId);
@@ -60,6 +69,8 @@ public class Order implements AggregateRoot<OrderId> {
         this.setStatus(status);
         this.setPaymentMethod(paymentMethod);
         this.setItems(items);
+        this.itemsLoaded = !Boolean.FALSE.equals(itemsLoaded);
+        this.changes.clear();
     }
 
     public static Order draft(CustomerId customerId) {
@@ -77,7 +88,8 @@ public class Order implements AggregateRoot<OrderId> {
                 null,
                 OrderStatus.DRAFT,
                 null,
-                new HashSet<>()
+                new HashSet<>(),
+                true
         );
     }
 
@@ -86,6 +98,7 @@ public class Order implements AggregateRoot<OrderId> {
         Objects.requireNonNull(quantity);
 
         this.verifyIfChangeable();
+        this.verifyItemsLoaded();
 
         product.checkOutOfStock();
 
@@ -100,11 +113,13 @@ public class Order implements AggregateRoot<OrderId> {
         }
 
         this.items.add(orderItem);
+        this.changes.itemAdded(orderItem.id());
 
         this.recalculateTotals();
     }
 
     public void place() {
+        this.verifyItemsLoaded();
         this.verifyIfCanChangeToPlaced();
         this.changeStatus(OrderStatus.PLACED);
         this.setPlacedAt(OffsetDateTime.now());
@@ -149,9 +164,11 @@ public class Order implements AggregateRoot<OrderId> {
         Objects.requireNonNull(quantity);
 
         this.verifyIfChangeable();
+        this.verifyItemsLoaded();
 
         OrderItem orderItem = this.findOrderItem(orderItemId);
         orderItem.changeQuantity(quantity);
+        this.changes.itemChanged(orderItemId);
 
         this.recalculateTotals();
     }
@@ -159,9 +176,11 @@ public class Order implements AggregateRoot<OrderId> {
     public void removeItem(OrderItemId orderItemId) {
         Objects.requireNonNull(orderItemId);
         this.verifyIfChangeable();
+        this.verifyItemsLoaded();
 
         OrderItem orderItem = findOrderItem(orderItemId);
         this.items.remove(orderItem);
+        this.changes.itemRemoved(orderItemId);
 
         this.recalculateTotals();
     }
@@ -191,6 +210,10 @@ public class Order implements AggregateRoot<OrderId> {
         return OrderStatus.CANCELED.equals(this.status());
     }
 
+    public boolean itemsLoaded() {
+        return itemsLoaded;
+    }
+
     public OrderId id() {
         return id;
     }
@@ -243,6 +266,11 @@ public class Order implements AggregateRoot<OrderId> {
         return Collections.unmodifiableSet(this.items);
     }
 
+    @Override
+    public ChangeTracker<Field, OrderItemId> changes() {
+        return changes;
+    }
+
     private void recalculateTotals() {
         BigDecimal totalItemsAmount = this.items().stream().map(i -> i.totalAmount().value())
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
@@ -294,6 +322,12 @@ public class Order implements AggregateRoot<OrderId> {
                 .orElseThrow(()-> new OrderDoesNotContainOrderItemException(this.id(), orderItemId));
     }
 
+    private void verifyItemsLoaded() {
+        if (!this.itemsLoaded()) {
+            throw new IllegalStateException("Items of order " + this.id() + " were not loaded");
+        }
+    }
+
     private void verifyIfChangeable() {
         if (!this.isDraft()) {
             throw new OrderCannotBeEditedException(this.id(), this.status());
@@ -315,49 +349,60 @@ public class Order implements AggregateRoot<OrderId> {
 
     private void setCustomerId(CustomerId customerId) {
         Objects.requireNonNull(customerId);
+        this.changes.track(Field.CUSTOMER_ID, this.customerId, customerId);
         this.customerId = customerId;
     }
 
     private void setTotalAmount(Money totalAmount) {
         Objects.requireNonNull(totalAmount);
+        this.changes.track(Field.TOTAL_AMOUNT, this.totalAmount, totalAmount);
         this.totalAmount = totalAmount;
     }
 
     private void setTotalItems(Quantity totalItems) {
         Objects.requireNonNull(totalItems);
+        this.changes.track(Field.TOTAL_ITEMS, this.totalItems, totalItems);
         this.totalItems = totalItems;
     }
 
     private void setPlacedAt(OffsetDateTime placedAt) {
+        this.changes.track(Field.PLACED_AT, this.placedAt, placedAt);
         this.placedAt = placedAt;
     }
 
     private void setPaidAt(OffsetDateTime paidAt) {
+        this.changes.track(Field.PAID_AT, this.paidAt, paidAt);
         this.paidAt = paidAt;
     }
 
     private void setCanceledAt(OffsetDateTime canceledAt) {
+        this.changes.track(Field.CANCELED_AT, this.canceledAt, canceledAt);
         this.canceledAt = canceledAt;
     }
 
     private void setReadyAt(OffsetDateTime readyAt) {
+        this.changes.track(Field.READY_AT, this.readyAt, readyAt);
         this.readyAt = readyAt;
     }
 
     private void setBilling(Billing billing) {
+        this.changes.track(Field.BILLING, this.billing, billing);
         this.billing = billing;
     }
 
     private void setShipping(Shipping shipping) {
+        this.changes.track(Field.SHIPPING, this.shipping, shipping);
         this.shipping = shipping;
     }
 
     private void setStatus(OrderStatus status) {
         Objects.requireNonNull(status);
+        this.changes.track(Field.STATUS, this.status, status);
         this.status = status;
     }
 
     private void setPaymentMethod(PaymentMethod paymentMethod) {
+        this.changes.track(Field.PAYMENT_METHOD, this.paymentMethod, paymentMethod);
         this.paymentMethod = paymentMethod;
     }
 
@@ -16,6 +16,11 @@ import java.time.OffsetDateTime;
 import java.util.*;
 
 public class ShoppingCart implements AggregateRoot<ShoppingCartId> {
+
+    public enum Field {
+        CUSTOMER_ID, TOTAL_AMOUNT, TOTAL_ITEMS, CREATED_AT
+    }
+
     private ShoppingCartId id;
     private CustomerId customerId;
     private Money totalAmount;
@@ -25,16 +30,20 @@ public class ShoppingCart implements AggregateRoot<ShoppingCartId> {
 
     private Long version;
 
+    private final ChangeTracker<Field, ShoppingCartItemId> changes = new ChangeTracker<>(Field.class);
+
     @Builder(builderClassName = "ExistingShoppingCartBuilder", builderMethodName = "existing")
     public ShoppingCart(ShoppingCartId id, Long version, CustomerId customerId,
                         Money totalAmount, Quantity totalItems, OffsetDateTime createdAt,
                         Set<ShoppingCartItem> items) {
         this.setId(id);
+        this.setVersion(version);
         this.setCustomerId(customerId);
         this.setTotalAmount(totalAmount);
         this.setTotalItems(totalItems);
         this.setCreatedAt(createdAt);
         this.setItems(items);
+        this.changes.clear();
     }
 
     public static ShoppingCart startShopping(CustomerId customerId) {
@@ -43,14 +52,16 @@ public class ShoppingCart implements AggregateRoot<ShoppingCartId> {
     }
 
     public void empty() {
+        items.forEach(i -> this.changes.itemRemoved(i.id()));
         items.clear();
-        totalAmount = Money.ZERO;
-        totalItems = Quantity.ZERO;
+        this.setTotalAmount(Money.ZERO);
+        this.setTotalItems(Quantity.ZERO);
     }
 
     public void removeItem(ShoppingCartItemId shoppingCartItemId) {
         ShoppingCartItem shoppingCartItem = this.findItem(shoppingCartItemId);
         this.items.remove(shoppingCartItem);
+        this.changes.itemRemoved(shoppingCartItemId);
         this.recalculateTotals();
     }
 
@@ -94,12 +105,14 @@ public class ShoppingCart implements AggregateRoot<ShoppingCartId> {
     public void refreshItem(Product product) {
         ShoppingCartItem shoppingCartItem = this.findItem(product.id());
         shoppingCartItem.refresh(product);
+        this.changes.itemChanged(shoppingCartItem.id());
         this.recalculateTotals();
     }
 
     public void changeItemQuantity(ShoppingCartItemId shoppingCartItemId, Quantity quantity) {
         ShoppingCartItem shoppingCartItem = this.findItem(shoppingCartItemId);
         shoppingCartItem.changeQuantity(quantity);
+        this.changes.itemChanged(shoppingCartItemId);
         this.recalculateTotals();
     }
 
@@ -139,13 +152,20 @@ public class ShoppingCart implements AggregateRoot<ShoppingCartId> {
         return version;
     }
 
+    @Override
+    public ChangeTracker<Field, ShoppingCartItemId> changes() {
+        return changes;
+    }
+
     private void updateItem(ShoppingCartItem shoppingCartItem, Product product, Quantity quantity) {
         shoppingCartItem.refresh(product);
         shoppingCartItem.changeQuantity(shoppingCartItem.quantity().add(quantity));
+        this.changes.itemChanged(shoppingCartItem.id());
     }
 
     private void insertItem(ShoppingCartItem shoppingCartItem) {
         this.items.add(shoppingCartItem);
+        this.changes.itemAdded(shoppingCartItem.id());
     }
 
     private Optional<ShoppingCartItem> searchItemByProduct(ProductId productId) {
@@ -164,8 +184,8 @@ public class ShoppingCart implements AggregateRoot<ShoppingCartId> {
                 .map(i -> i.quantity().value())
                 .reduce(0, Integer::sum);
 
-        this.totalAmount = new Money(totalAmount);
-        this.totalItems = new Quantity(totalItems);
+        this.setTotalAmount(new Money(totalAmount));
+        this.setTotalItems(new Quantity(totalItems));
     }
 
     private void setId(ShoppingCartId id) {
@@ -175,21 +195,25 @@ public class ShoppingCart implements AggregateRoot<ShoppingCartId> {
 
     private void setCustomerId(CustomerId customerId) {
         Objects.requireNonNull(customerId);
+        this.changes.track(Field.CUSTOMER_ID, this.customerId, customerId);
         this.customerId = customerId;
     }
 
     private void setTotalAmount(Money totalAmount) {
         Objects.requireNonNull(totalAmount);
+        this.changes.track(Field.TOTAL_AMOUNT, this.totalAmount, totalAmount);
         this.totalAmount = totalAmount;
     }
 
     private void setTotalItems(Quantity totalItems) {
         Objects.requireNonNull(totalItems);
+        this.changes.track(Field.TOTAL_ITEMS, this.totalItems, totalItems);
         this.totalItems = totalItems;
     }
 
     private void setCreatedAt(OffsetDateTime createdAt) {
         Objects.requireNonNull(createdAt);
+        this.changes.track(Field.CREATED_AT, this.createdAt, createdAt);
         this.createdAt = createdAt;
     }
 
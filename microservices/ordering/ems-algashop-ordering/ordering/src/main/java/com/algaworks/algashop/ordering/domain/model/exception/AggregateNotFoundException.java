@@ -0,0 +1,8 @@
+package com.algaworks.algashop.ordering.domain.model.exception;
+
+public class AggregateNotFoundException extends DomainException {
+
+    public AggregateNotFoundException(Object id) {
+        super(String.format(ErrorMessages.ERROR_AGGREGATE_NOT_FOUND, id));
+    }
+}
@@ -0,0 +1,16 @@
+package com.algaworks.algashop.ordering.domain.model.repository;
+
+import java.util.List;
+import java.util.Objects;
+
+public record CursorPage<T, C>(List<T> content, C nextCursor) {
+
+    public CursorPage {
+        Objects.requireNonNull(content);
+        content = List.copyOf(content);
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,7 @@
+package com.algaworks.algashop.ordering.domain.model.repository;
+
+public enum OrderFetchPlan {
+    HEADER_ONLY,
+    WITH_ITEMS,
+    FULL
+}
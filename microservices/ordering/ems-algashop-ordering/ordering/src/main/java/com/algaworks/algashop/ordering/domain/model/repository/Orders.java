@@ -1,15 +1,23 @@
 package com.algaworks.algashop.ordering.domain.model.repository;
 
 import com.algaworks.algashop.ordering.domain.model.entity.Order;
+import com.algaworks.algashop.ordering.domain.model.entity.OrderStatus;
 import com.algaworks.algashop.ordering.domain.model.valueobject.Money;
 import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
 import com.algaworks.algashop.ordering.domain.model.valueobject.id.OrderId;
 
 import java.time.Year;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface Orders extends Repository<Order, OrderId> {
+    Optional<Order> ofId(OrderId orderId, OrderFetchPlan fetchPlan);
     List<Order> placedByCustomerInYear(CustomerId customerId, Year year);
+    List<Order> placedByCustomerInYear(CustomerId customerId, Year year, OrderFetchPlan fetchPlan);
+    CursorPage<Order, OrderId> ofCustomer(CustomerId customerId, OrderId after, int limit);
+    Stream<Order> streamOfCustomer(CustomerId customerId);
     long salesQuantityByCustomerInYear(CustomerId customerId, Year year);
     Money totalSoldForCustomer(CustomerId customerId);
+    long count(OrderStatus status);
 }
\ No newline at end of file
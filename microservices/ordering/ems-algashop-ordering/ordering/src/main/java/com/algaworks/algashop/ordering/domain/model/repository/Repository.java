@@ -2,11 +2,15 @@ package com.algaworks.algashop.ordering.domain.model.repository;
 
 import com.algaworks.algashop.ordering.domain.model.entity.AggregateRoot;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 public interface Repository<T extends AggregateRoot<ID>, ID> {
     Optional<T> ofId(ID id);
+    Map<ID, T> ofIds(Collection<ID> ids);
     boolean exists(ID id);
     void add(T aggregateRoot);
+    void addAll(Collection<T> aggregateRoots);
     long count();
 }
\ No newline at end of file
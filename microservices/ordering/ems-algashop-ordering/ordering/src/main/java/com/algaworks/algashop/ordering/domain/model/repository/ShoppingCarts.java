@@ -1,6 +1,7 @@
 package com.algaworks.algashop.ordering.domain.model.repository;
 
 import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCart;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Product;
 import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
 import com.algaworks.algashop.ordering.domain.model.valueobject.id.ShoppingCartId;
 
@@ -8,4 +9,5 @@ import java.util.Optional;
 
 public interface ShoppingCarts extends RemoveCapableRepository<ShoppingCart, ShoppingCartId> {
     Optional<ShoppingCart> ofCustomer(CustomerId customerId);
+    int refreshItems(Product product);
 }
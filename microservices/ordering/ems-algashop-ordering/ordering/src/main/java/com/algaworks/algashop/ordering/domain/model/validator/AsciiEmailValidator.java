@@ -0,0 +1,90 @@
+package com.algaworks.algashop.ordering.domain.model.validator;
+
+import org.apache.commons.validator.routines.DomainValidator;
+
+class AsciiEmailValidator {
+
+    private static final int MAX_LOCAL_PART_LENGTH = 64;
+    private static final int MAX_DOMAIN_LENGTH = 253;
+    private static final int MAX_LABEL_LENGTH = 63;
+
+    private static final DomainValidator domainValidator = DomainValidator.getInstance();
+
+    private AsciiEmailValidator() {
+
+    }
+
+    /*
+     * Accepts only the common dot-atom@host.tld shape, which is a strict subset of what
+     * commons-validator accepts. A false result means "not proven valid", never "invalid".
+     */
+    static boolean isPlainValid(String email) {
+        int at = email.indexOf('@');
+        if (at < 1 || at > MAX_LOCAL_PART_LENGTH || at == email.length() - 1) {
+            return false;
+        }
+        return isPlainLocalPart(email, at) && isPlainDomain(email, at + 1);
+    }
+
+    private static boolean isPlainLocalPart(String email, int end) {
+        char previous = '.';
+        for (int i = 0; i < end; i++) {
+            char c = email.charAt(i);
+            if (c == '.') {
+                if (previous == '.') {
+                    return false;
+                }
+            } else if (!isAlphanumeric(c) && c != '_' && c != '-' && c != '+' && c != '%') {
+                return false;
+            }
+            previous = c;
+        }
+        return previous != '.';
+    }
+
+    private static boolean isPlainDomain(String email, int start) {
+        int length = email.length();
+        if (length - start > MAX_DOMAIN_LENGTH) {
+            return false;
+        }
+
+        int labelStart = start;
+        int labels = 0;
+        for (int i = start; i <= length; i++) {
+            if (i < length && email.charAt(i) != '.') {
+                char c = email.charAt(i);
+                if (!isAlphanumeric(c) && c != '-') {
+                    return false;
+                }
+                continue;
+            }
+            int labelLength = i - labelStart;
+            if (labelLength == 0 || labelLength > MAX_LABEL_LENGTH
+                    || email.charAt(labelStart) == '-' || email.charAt(i - 1) == '-') {
+                return false;
+            }
+            labels++;
+            labelStart = i + 1;
+        }
+        if (labels < 2) {
+            return false;
+        }
+
+        int tldStart = email.lastIndexOf('.') + 1;
+        for (int i = tldStart; i < length; i++) {
+            if (!isLetter(email.charAt(i))) {
+                return false;
+            }
+        }
+        return domainValidator.isValidTld(email.substring(tldStart));
+    }
+
+    private static boolean isAlphanumeric(char c) {
+        return isLetter(c) || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+}
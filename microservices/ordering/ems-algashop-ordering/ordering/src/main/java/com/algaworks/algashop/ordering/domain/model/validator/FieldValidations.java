@@ -26,10 +26,24 @@ public class FieldValidations {
 
     public static void requiresValidEmail(String email, String errorMessage) {
         Objects.requireNonNull(email, errorMessage);
+        if (TrustedHydration.isActive()) {
+            return;
+        }
         if (email.isBlank()) {
             throw new IllegalArgumentException(errorMessage);
         }
-        if (!EmailValidator.getInstance().isValid(email)) {
+        if (!AsciiEmailValidator.isPlainValid(email) && !EmailValidator.getInstance().isValid(email)) {
+            throw new IllegalArgumentException(errorMessage);
+        }
+    }
+
+    public static void requiresLength(String value, int length) {
+        requiresLength(value, length, "Value must have exactly " + length + " characters");
+    }
+
+    public static void requiresLength(String value, int length, String errorMessage) {
+        Objects.requireNonNull(value, errorMessage);
+        if (value.length() != length) {
             throw new IllegalArgumentException(errorMessage);
         }
     }
@@ -0,0 +1,34 @@
+package com.algaworks.algashop.ordering.domain.model.validator;
+
+import java.util.function.Supplier;
+
+/*
+ * Marks the current thread as rebuilding aggregates from state that was validated when it was
+ * written, so value objects can skip checks that only guard user input. Only disassemblers
+ * should enter it; everything built outside keeps the full validation.
+ */
+public class TrustedHydration {
+
+    private static final boolean enabled = !Boolean.getBoolean("algashop.domain.trusted-hydration.disabled");
+    private static final ThreadLocal<Boolean> active = new ThreadLocal<>();
+
+    private TrustedHydration() {
+
+    }
+
+    public static <T> T hydrate(Supplier<T> hydration) {
+        if (!enabled || active.get() != null) {
+            return hydration.get();
+        }
+        active.set(Boolean.TRUE);
+        try {
+            return hydration.get();
+        } finally {
+            active.remove();
+        }
+    }
+
+    public static boolean isActive() {
+        return active.get() != null;
+    }
+}
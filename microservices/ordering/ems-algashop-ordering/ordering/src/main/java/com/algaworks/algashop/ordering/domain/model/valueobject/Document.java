@@ -1,14 +1,11 @@
 package com.algaworks.algashop.ordering.domain.model.valueobject;
 
-import java.util.Objects;
+import com.algaworks.algashop.ordering.domain.model.validator.FieldValidations;
 
 public record Document(String value) {
 
     public Document {
-        Objects.requireNonNull(value);
-        if (value.isBlank()) {
-            throw new IllegalArgumentException();
-        }
+        FieldValidations.requiresNonBlank(value);
     }
 
     @Override
@@ -1,5 +1,7 @@
 package com.algaworks.algashop.ordering.domain.model.valueobject;
 
+import com.algaworks.algashop.ordering.domain.model.validator.TrustedHydration;
+
 import java.util.Objects;
 
 public record FullName(String firstName, String lastName) {
@@ -7,16 +9,21 @@ public record FullName(String firstName, String lastName) {
         Objects.requireNonNull(firstName);
         Objects.requireNonNull(lastName);
 
-        if (firstName.isBlank()) {
-            throw new IllegalArgumentException();
-        }
+        if (!TrustedHydration.isActive()) {
+            if (firstName.isBlank()) {
+                throw new IllegalArgumentException();
+            }
+
+            if (lastName.isBlank()) {
+                throw new IllegalArgumentException();
+            }
 
-        if (lastName.isBlank()) {
-            throw new IllegalArgumentException();
+            firstName = firstName.trim();
+            lastName = lastName.trim();
         }
 
-        this.firstName = firstName.trim();
-        this.lastName = lastName.trim();
+        this.firstName = firstName;
+        this.lastName = lastName;
     }
 
     @Override
@@ -1,13 +1,10 @@
 package com.algaworks.algashop.ordering.domain.model.valueobject;
 
-import java.util.Objects;
+import com.algaworks.algashop.ordering.domain.model.validator.FieldValidations;
 
 public record Phone(String value) {
     public Phone {
-        Objects.requireNonNull(value);
-        if (value.isBlank()) {
-            throw new IllegalArgumentException();
-        }
+        FieldValidations.requiresNonBlank(value);
     }
 
     @Override
@@ -1,17 +1,12 @@
 package com.algaworks.algashop.ordering.domain.model.valueobject;
 
-import java.util.Objects;
+import com.algaworks.algashop.ordering.domain.model.validator.FieldValidations;
 
 public record ZipCode(String value) {
 
     public ZipCode {
-        Objects.requireNonNull(value);
-        if (value.isBlank()) {
-            throw new IllegalArgumentException();
-        }
-        if (value.length() != 5) {
-            throw new IllegalArgumentException();
-        }
+        FieldValidations.requiresNonBlank(value);
+        FieldValidations.requiresLength(value, 5, "Zip code must have exactly 5 characters");
     }
 
     @Override
@@ -24,13 +24,37 @@ public class CustomerPersistenceEntityAssembler {
         customerPersistenceEntity.setPromotionNotificationsAllowed(customer.isPromotionNotificationsAllowed());
         customerPersistenceEntity.setArchived(customer.isArchived());
         customerPersistenceEntity.setRegisteredAt(customer.registeredAt());
-        customerPersistenceEntity.setArchivedAt(customer.registeredAt());
+        customerPersistenceEntity.setArchivedAt(customer.archivedAt());
         customerPersistenceEntity.setLoyaltyPoints(customer.loyaltyPoints().value());
         customerPersistenceEntity.setAddress(toAddressEmbeddable(customer.address()));
         customerPersistenceEntity.setVersion(customer.version());
         return customerPersistenceEntity;
     }
 
+    public CustomerPersistenceEntity mergeChanges(CustomerPersistenceEntity customerPersistenceEntity, Customer customer) {
+        for (Customer.Field field : customer.changes().dirtyFields()) {
+            switch (field) {
+                case FULL_NAME -> {
+                    customerPersistenceEntity.setFirstName(customer.fullName().firstName());
+                    customerPersistenceEntity.setLastName(customer.fullName().lastName());
+                }
+                case BIRTH_DATE -> customerPersistenceEntity.setBirthDate(
+                        customer.birthDate() != null ? customer.birthDate().value() : null);
+                case EMAIL -> customerPersistenceEntity.setEmail(customer.email().value());
+                case PHONE -> customerPersistenceEntity.setPhone(customer.phone().value());
+                case DOCUMENT -> customerPersistenceEntity.setDocument(customer.document().value());
+                case PROMOTION_NOTIFICATIONS_ALLOWED -> customerPersistenceEntity.setPromotionNotificationsAllowed(
+                        customer.isPromotionNotificationsAllowed());
+                case ARCHIVED -> customerPersistenceEntity.setArchived(customer.isArchived());
+                case REGISTERED_AT -> customerPersistenceEntity.setRegisteredAt(customer.registeredAt());
+                case ARCHIVED_AT -> customerPersistenceEntity.setArchivedAt(customer.archivedAt());
+                case LOYALTY_POINTS -> customerPersistenceEntity.setLoyaltyPoints(customer.loyaltyPoints().value());
+                case ADDRESS -> customerPersistenceEntity.setAddress(toAddressEmbeddable(customer.address()));
+            }
+        }
+        return customerPersistenceEntity;
+    }
+
     private AddressEmbeddable toAddressEmbeddable(Address address) {
         return AddressEmbeddable.builder()
                 .city(address.city())
@@ -1,11 +1,13 @@
 package com.algaworks.algashop.ordering.infrastructure.persistence.assembler;
 
+import com.algaworks.algashop.ordering.domain.model.entity.ChangeTracker;
 import com.algaworks.algashop.ordering.domain.model.entity.Order;
 import com.algaworks.algashop.ordering.domain.model.entity.OrderItem;
 import com.algaworks.algashop.ordering.domain.model.valueobject.Address;
 import com.algaworks.algashop.ordering.domain.model.valueobject.Billing;
 import com.algaworks.algashop.ordering.domain.model.valueobject.Recipient;
 import com.algaworks.algashop.ordering.domain.model.valueobject.Shipping;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.OrderItemId;
 import com.algaworks.algashop.ordering.infrastructure.persistence.embeddable.AddressEmbeddable;
 import com.algaworks.algashop.ordering.infrastructure.persistence.embeddable.BillingEmbeddable;
 import com.algaworks.algashop.ordering.infrastructure.persistence.embeddable.RecipientEmbeddable;
@@ -56,6 +58,57 @@ public class OrderPersistenceEntityAssembler {
         return orderPersistenceEntity;
     }
 
+    public OrderPersistenceEntity mergeChanges(OrderPersistenceEntity orderPersistenceEntity, Order order) {
+        ChangeTracker<Order.Field, OrderItemId> changes = order.changes();
+        for (Order.Field field : changes.dirtyFields()) {
+            switch (field) {
+                case CUSTOMER_ID -> orderPersistenceEntity.setCustomer(
+                        customerPersistenceEntityRepository.getReferenceById(order.customerId().value()));
+                case TOTAL_AMOUNT -> orderPersistenceEntity.setTotalAmount(order.totalAmount().value());
+                case TOTAL_ITEMS -> orderPersistenceEntity.setTotalItems(order.totalItems().value());
+                case PLACED_AT -> orderPersistenceEntity.setPlacedAt(order.placedAt());
+                case PAID_AT -> orderPersistenceEntity.setPaidAt(order.paidAt());
+                case CANCELED_AT -> orderPersistenceEntity.setCanceledAt(order.canceledAt());
+                case READY_AT -> orderPersistenceEntity.setReadyAt(order.readyAt());
+                case BILLING -> orderPersistenceEntity.setBilling(toBillingEmbeddable(order.billing()));
+                case SHIPPING -> orderPersistenceEntity.setShipping(toShippingEmbeddable(order.shipping()));
+                case STATUS -> orderPersistenceEntity.setStatus(order.status().name());
+                case PAYMENT_METHOD -> orderPersistenceEntity.setPaymentMethod(
+                        order.paymentMethod() != null ? order.paymentMethod().name() : null);
+            }
+        }
+
+        if (changes.hasItemChanges()) {
+            mergeItemChanges(order, orderPersistenceEntity);
+        }
+
+        return orderPersistenceEntity;
+    }
+
+    private void mergeItemChanges(Order order, OrderPersistenceEntity orderPersistenceEntity) {
+        ChangeTracker<Order.Field, OrderItemId> changes = order.changes();
+
+        Set<Long> removedItemIds = changes.removedItems().stream()
+                .map(id -> id.value().toLong())
+                .collect(Collectors.toSet());
+        orderPersistenceEntity.getItems().removeIf(item -> removedItemIds.contains(item.getId()));
+
+        Map<Long, OrderItemPersistenceEntity> existingItemMap = orderPersistenceEntity.getItems().stream()
+                .collect(Collectors.toMap(OrderItemPersistenceEntity::getId, item -> item));
+
+        for (OrderItem orderItem : order.items()) {
+            if (!changes.addedItems().contains(orderItem.id()) && !changes.changedItems().contains(orderItem.id())) {
+                continue;
+            }
+            OrderItemPersistenceEntity itemPersistence = existingItemMap.get(orderItem.id().value().toLong());
+            if (itemPersistence == null) {
+                orderPersistenceEntity.addItem(fromDomain(orderItem));
+            } else {
+                merge(itemPersistence, orderItem);
+            }
+        }
+    }
+
     private Set<OrderItemPersistenceEntity> mergeItems(Order order, OrderPersistenceEntity orderPersistenceEntity) {
         Set<OrderItem> newOrUpdatedItems = order.items();
 
@@ -1,14 +1,19 @@
 package com.algaworks.algashop.ordering.infrastructure.persistence.assembler;
 
+import com.algaworks.algashop.ordering.domain.model.entity.ChangeTracker;
 import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCart;
 import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCartItem;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.ShoppingCartItemId;
 import com.algaworks.algashop.ordering.infrastructure.persistence.entity.ShoppingCartItemPersistenceEntity;
 import com.algaworks.algashop.ordering.infrastructure.persistence.entity.ShoppingCartPersistenceEntity;
 import com.algaworks.algashop.ordering.infrastructure.persistence.repository.CustomerPersistenceEntityRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Component
@@ -28,12 +33,77 @@ public class ShoppingCartPersistenceEntityAssembler {
         persistenceEntity.setTotalAmount(shoppingCart.totalAmount().value());
         persistenceEntity.setTotalItems(shoppingCart.totalItems().value());
         persistenceEntity.setCreatedAt(shoppingCart.createdAt());
-        persistenceEntity.replaceItems(toOrderItemsEntities(shoppingCart.items()));
+        persistenceEntity.setVersion(shoppingCart.version());
+        mergeItems(shoppingCart, persistenceEntity);
         return persistenceEntity;
     }
 
-    private Set<ShoppingCartItemPersistenceEntity> toOrderItemsEntities(Set<ShoppingCartItem> source) {
-        return source.stream().map(i -> this.mergeItem(new ShoppingCartItemPersistenceEntity(), i)).collect(Collectors.toSet());
+    public ShoppingCartPersistenceEntity mergeChanges(ShoppingCartPersistenceEntity persistenceEntity,
+                                                      ShoppingCart shoppingCart) {
+        ChangeTracker<ShoppingCart.Field, ShoppingCartItemId> changes = shoppingCart.changes();
+        for (ShoppingCart.Field field : changes.dirtyFields()) {
+            switch (field) {
+                case CUSTOMER_ID -> persistenceEntity.setCustomer(
+                        customerPersistenceEntityRepository.getReferenceById(shoppingCart.customerId().value()));
+                case TOTAL_AMOUNT -> persistenceEntity.setTotalAmount(shoppingCart.totalAmount().value());
+                case TOTAL_ITEMS -> persistenceEntity.setTotalItems(shoppingCart.totalItems().value());
+                case CREATED_AT -> persistenceEntity.setCreatedAt(shoppingCart.createdAt());
+            }
+        }
+
+        if (changes.hasItemChanges()) {
+            mergeItemChanges(shoppingCart, persistenceEntity);
+        }
+
+        return persistenceEntity;
+    }
+
+    private void mergeItemChanges(ShoppingCart shoppingCart, ShoppingCartPersistenceEntity persistenceEntity) {
+        ChangeTracker<ShoppingCart.Field, ShoppingCartItemId> changes = shoppingCart.changes();
+
+        Set<UUID> removedItemIds = changes.removedItems().stream()
+                .map(ShoppingCartItemId::value)
+                .collect(Collectors.toSet());
+        persistenceEntity.getItems().removeIf(item -> removedItemIds.contains(item.getId()));
+
+        Map<UUID, ShoppingCartItemPersistenceEntity> existingItemMap = persistenceEntity.getItems().stream()
+                .collect(Collectors.toMap(ShoppingCartItemPersistenceEntity::getId, item -> item));
+
+        for (ShoppingCartItem shoppingCartItem : shoppingCart.items()) {
+            if (!changes.addedItems().contains(shoppingCartItem.id()) && !changes.changedItems().contains(shoppingCartItem.id())) {
+                continue;
+            }
+            ShoppingCartItemPersistenceEntity itemPersistence = existingItemMap.get(shoppingCartItem.id().value());
+            if (itemPersistence == null) {
+                persistenceEntity.addItem(mergeItem(new ShoppingCartItemPersistenceEntity(), shoppingCartItem));
+            } else {
+                mergeItem(itemPersistence, shoppingCartItem);
+            }
+        }
+    }
+
+    private void mergeItems(ShoppingCart shoppingCart, ShoppingCartPersistenceEntity persistenceEntity) {
+        if (persistenceEntity.getItems() == null) {
+            persistenceEntity.setItems(new HashSet<>());
+        }
+
+        Map<UUID, ShoppingCartItem> updatedItemMap = shoppingCart.items().stream()
+                .collect(Collectors.toMap(item -> item.id().value(), item -> item));
+
+        Set<ShoppingCartItemPersistenceEntity> existingItems = persistenceEntity.getItems();
+        existingItems.removeIf(item -> !updatedItemMap.containsKey(item.getId()));
+
+        Map<UUID, ShoppingCartItemPersistenceEntity> existingItemMap = existingItems.stream()
+                .collect(Collectors.toMap(ShoppingCartItemPersistenceEntity::getId, item -> item));
+
+        updatedItemMap.forEach((id, shoppingCartItem) -> {
+            ShoppingCartItemPersistenceEntity itemPersistence = existingItemMap.get(id);
+            if (itemPersistence == null) {
+                persistenceEntity.addItem(mergeItem(new ShoppingCartItemPersistenceEntity(), shoppingCartItem));
+            } else {
+                mergeItem(itemPersistence, shoppingCartItem);
+            }
+        });
     }
 
     private ShoppingCartItemPersistenceEntity mergeItem(ShoppingCartItemPersistenceEntity persistenceEntity, ShoppingCartItem shoppingCartItem
@@ -47,17 +117,4 @@ public class ShoppingCartPersistenceEntityAssembler {
         persistenceEntity.setTotalAmount(shoppingCartItem.totalAmount().value());
         return persistenceEntity;
     }
-
-    private ShoppingCartItemPersistenceEntity toOrderItemsEntities(ShoppingCartItem source) {
-        return ShoppingCartItemPersistenceEntity.builder()
-                .id(source.id().value())
-                .shoppingCart(ShoppingCartPersistenceEntity.builder().id(source.shoppingCartId().value()).build())
-                .productId(source.productId().value())
-                .name(source.name().value())
-                .price(source.price().value())
-                .quantity(source.quantity().value())
-                .available(source.isAvailable())
-                .totalAmount(source.totalAmount().value())
-                .build();
-    }
 }
@@ -0,0 +1,28 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.config;
+
+import com.algaworks.algashop.ordering.infrastructure.persistence.repository.CustomerPersistenceEntityRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CustomerEmailMigration {
+
+    private final CustomerPersistenceEntityRepository customerPersistenceEntityRepository;
+
+    @Order(0)
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        int migrated = customerPersistenceEntityRepository.normalizeMissingEmails();
+        if (migrated > 0) {
+            log.info("Normalized email of {} existing customers", migrated);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.algaworks.algashop.ordering.infrastructure.persistence.disassembler;
 
 import com.algaworks.algashop.ordering.domain.model.entity.Customer;
+import com.algaworks.algashop.ordering.domain.model.validator.TrustedHydration;
 import com.algaworks.algashop.ordering.domain.model.valueobject.*;
 import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
 import com.algaworks.algashop.ordering.infrastructure.persistence.embeddable.AddressEmbeddable;
@@ -9,6 +10,10 @@ import com.algaworks.algashop.ordering.infrastructure.persistence.entity.Custome
 public class CustomerPersistenceEntityDisassembler {
 
     public Customer toDomainEntity(CustomerPersistenceEntity entity) {
+        return TrustedHydration.hydrate(() -> hydrate(entity));
+    }
+
+    private Customer hydrate(CustomerPersistenceEntity entity) {
         return Customer.existing()
                 .id(new CustomerId(entity.getId()))
                 .fullName(new FullName(entity.getFirstName(), entity.getLastName()))
@@ -4,6 +4,7 @@ import com.algaworks.algashop.ordering.domain.model.entity.Order;
 import com.algaworks.algashop.ordering.domain.model.entity.OrderItem;
 import com.algaworks.algashop.ordering.domain.model.entity.OrderStatus;
 import com.algaworks.algashop.ordering.domain.model.entity.PaymentMethod;
+import com.algaworks.algashop.ordering.domain.model.validator.TrustedHydration;
 import com.algaworks.algashop.ordering.domain.model.valueobject.*;
 import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
 import com.algaworks.algashop.ordering.domain.model.valueobject.id.OrderId;
@@ -25,6 +26,15 @@ import java.util.stream.Collectors;
 public class OrderPersistenceEntityDisassembler {
 
     public Order toDomainEntity(OrderPersistenceEntity persistenceEntity) {
+        return TrustedHydration.hydrate(
+                () -> toDomainEntity(persistenceEntity, toDomainEntity(persistenceEntity.getItems()), true));
+    }
+
+    public Order toHeaderDomainEntity(OrderPersistenceEntity persistenceEntity) {
+        return TrustedHydration.hydrate(() -> toDomainEntity(persistenceEntity, new HashSet<>(), false));
+    }
+
+    private Order toDomainEntity(OrderPersistenceEntity persistenceEntity, Set<OrderItem> items, boolean itemsLoaded) {
         return Order.existing()
                 .id(new OrderId(persistenceEntity.getId()))
                 .customerId(new CustomerId(persistenceEntity.getCustomerId()))
@@ -36,9 +46,9 @@ public class OrderPersistenceEntityDisassembler {
                 .paidAt(persistenceEntity.getPaidAt())
                 .canceledAt(persistenceEntity.getCanceledAt())
                 .readyAt(persistenceEntity.getReadyAt())
-                .items(new HashSet<>())
                 .version(persistenceEntity.getVersion())
-                .items(toDomainEntity(persistenceEntity.getItems()))
+                .items(items)
+                .itemsLoaded(itemsLoaded)
                 .build();
     }
 
@@ -2,6 +2,7 @@ package com.algaworks.algashop.ordering.infrastructure.persistence.disassembler;
 
 import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCart;
 import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCartItem;
+import com.algaworks.algashop.ordering.domain.model.validator.TrustedHydration;
 import com.algaworks.algashop.ordering.domain.model.valueobject.Money;
 import com.algaworks.algashop.ordering.domain.model.valueobject.ProductName;
 import com.algaworks.algashop.ordering.domain.model.valueobject.Quantity;
@@ -19,6 +20,10 @@ import java.util.stream.Collectors;
 @Component
 public class ShoppingCartPersistenceEntityDisassembler {
     public ShoppingCart toDomainEntity(ShoppingCartPersistenceEntity source) {
+        return TrustedHydration.hydrate(() -> hydrate(source));
+    }
+
+    private ShoppingCart hydrate(ShoppingCartPersistenceEntity source) {
         return ShoppingCart.existing()
                 .id(new ShoppingCartId(source.getId()))
                 .customerId(new CustomerId(source.getCustomerId()))
@@ -26,6 +31,7 @@ public class ShoppingCartPersistenceEntityDisassembler {
                 .createdAt(source.getCreatedAt())
                 .items(toItemsDomainEntities(source.getItems()))
                 .totalItems(new Quantity(source.getTotalItems()))
+                .version(source.getVersion())
                 .build();
     }
 
@@ -3,6 +3,7 @@ package com.algaworks.algashop.ordering.infrastructure.persistence.entity;
 import com.algaworks.algashop.ordering.infrastructure.persistence.embeddable.AddressEmbeddable;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.annotation.LastModifiedDate;
@@ -10,15 +11,19 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.util.Locale;
 import java.util.UUID;
 
 @Entity
+@DynamicUpdate
 @Getter
 @Setter
 @ToString(of = "id")
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @NoArgsConstructor
-@Table(name = "\"customer\"")
+@Table(name = "\"customer\"", indexes = {
+        @Index(name = "uk_customer_email_normalized", columnList = "email_normalized", unique = true)
+})
 @AllArgsConstructor
 @Builder
 @EntityListeners(AuditingEntityListener.class)
@@ -30,6 +35,8 @@ public class CustomerPersistenceEntity {
     private String lastName;
     private LocalDate birthDate;
     private String email;
+    @Column(name = "email_normalized")
+    private String emailNormalized;
     private String phone;
     private String document;
     private Boolean promotionNotificationsAllowed;
@@ -60,4 +67,22 @@ public class CustomerPersistenceEntity {
 
     @LastModifiedBy
     private UUID lastModifiedByUserId;
+
+    public void setEmail(String email) {
+        this.email = email;
+        this.emailNormalized = normalizeEmail(email);
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void syncNormalizedEmail() {
+        this.emailNormalized = normalizeEmail(this.email);
+    }
+
+    public static String normalizeEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Entity
+@Getter
+@Setter
+@ToString(of = {"customerId", "salesYear"})
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "customer_sales_summary")
+@IdClass(CustomerSalesSummaryPersistenceEntity.Key.class)
+public class CustomerSalesSummaryPersistenceEntity {
+    @Id
+    @EqualsAndHashCode.Include
+    private UUID customerId;
+
+    @Id
+    @EqualsAndHashCode.Include
+    private Integer salesYear;
+
+    private Long salesQuantity;
+    private BigDecimal totalSold;
+
+    public record Key(UUID customerId, Integer salesYear) implements Serializable {
+    }
+}
@@ -4,6 +4,7 @@ import com.algaworks.algashop.ordering.infrastructure.persistence.embeddable.Bil
 import com.algaworks.algashop.ordering.infrastructure.persistence.embeddable.ShippingEmbeddable;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.annotation.LastModifiedDate;
@@ -16,20 +17,39 @@ import java.util.Set;
 import java.util.UUID;
 
 @Entity
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
 @ToString(of = "id")
-@Table(name = "\"order\"")
+@Table(name = "\"order\"", indexes = {
+        @Index(name = "idx_order_customer_id_placed_at", columnList = "customer_id, placed_at"),
+        @Index(name = "idx_order_customer_id_id", columnList = "customer_id, id"),
+        @Index(name = "idx_order_paid_at", columnList = "paid_at"),
+        @Index(name = "idx_order_canceled_at", columnList = "canceled_at"),
+        @Index(name = "idx_order_status", columnList = "status")
+})
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @EntityListeners(AuditingEntityListener.class)
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = OrderPersistenceEntity.WITH_ITEMS_GRAPH, attributeNodes = {
+                @NamedAttributeNode("items")
+        }),
+        @NamedEntityGraph(name = OrderPersistenceEntity.FULL_GRAPH, attributeNodes = {
+                @NamedAttributeNode("items"),
+                @NamedAttributeNode("customer")
+        })
+})
 public class OrderPersistenceEntity {
+    public static final String WITH_ITEMS_GRAPH = "Order.withItems";
+    public static final String FULL_GRAPH = "Order.full";
+
     @Id
     @EqualsAndHashCode.Include
     private Long id;
 
     @JoinColumn
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     private CustomerPersistenceEntity customer;
 
     private BigDecimal totalAmount;
@@ -88,7 +108,7 @@ public class OrderPersistenceEntity {
     })
     private ShippingEmbeddable shipping;
 
-    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL)
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<OrderItemPersistenceEntity> items = new HashSet<>();
 
     @Builder
@@ -113,13 +133,16 @@ public class OrderPersistenceEntity {
     }
 
     public void replaceItems(Set<OrderItemPersistenceEntity> items) {
-        if (items == null || items.isEmpty()) {
+        if (this.getItems() == null) {
             this.setItems(new HashSet<>());
+        }
+        this.getItems().clear();
+
+        if (items == null || items.isEmpty()) {
             return;
         }
 
-        items.forEach(i -> i.setOrder(this));
-        this.setItems(items);
+        items.forEach(this::addItem);
     }
 
     public void addItem(OrderItemPersistenceEntity item) {
@@ -2,6 +2,7 @@ package com.algaworks.algashop.ordering.infrastructure.persistence.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
@@ -15,11 +16,14 @@ import java.util.Set;
 import java.util.UUID;
 
 @Entity
+@DynamicUpdate
 @Getter
 @Setter
 @ToString(of = "id")
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
-@Table(name = "\"shopping_cart\"")
+@Table(name = "\"shopping_cart\"", indexes = {
+        @Index(name = "uk_shopping_cart_customer_id", columnList = "customer_id", unique = true)
+})
 @NoArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
 public class ShoppingCartPersistenceEntity {
@@ -30,10 +34,10 @@ public class ShoppingCartPersistenceEntity {
     private Integer totalItems;
 
     @JoinColumn
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     private CustomerPersistenceEntity customer;
 
-    @OneToMany(mappedBy = "shoppingCart", cascade = CascadeType.ALL)
+    @OneToMany(mappedBy = "shoppingCart", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<ShoppingCartItemPersistenceEntity> items = new HashSet<>();
 
     @CreatedBy
@@ -87,12 +91,15 @@ public class ShoppingCartPersistenceEntity {
     }
 
     public void replaceItems(Set<ShoppingCartItemPersistenceEntity> updatedItems) {
-        if (updatedItems == null || updatedItems.isEmpty()) {
+        if (this.getItems() == null) {
             this.setItems(new HashSet<>());
+        }
+        this.items.clear();
+
+        if (updatedItems == null || updatedItems.isEmpty()) {
             return;
         }
 
-        updatedItems.forEach(i -> i.setShoppingCart(this));
-        this.setItems(updatedItems);
+        this.addItem(updatedItems);
     }
 }
@@ -0,0 +1,428 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import com.algaworks.algashop.ordering.domain.model.entity.AggregateRoot;
+import com.algaworks.algashop.ordering.domain.model.entity.ChangeTracker;
+import com.algaworks.algashop.ordering.domain.model.repository.Repository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+@Transactional(readOnly = true)
+public abstract class AbstractPersistenceProvider<A extends AggregateRoot<ID>, ID, E, K, R extends JpaRepository<E, K>>
+        implements Repository<A, ID> {
+
+    protected final Class<E> entityType;
+    protected final R persistenceRepository;
+    protected final EntityManager entityManager;
+    protected final AggregateMetadata<A, ID> metadata;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Value("${algashop.persistence.write-mode:VERSION_DRIVEN}")
+    private AggregateWriteMode writeMode;
+
+    @Value("${algashop.persistence.multi-get.chunk-size:500}")
+    private int multiGetChunkSize;
+
+    @Value("${algashop.persistence.single-flight.enabled:true}")
+    private boolean singleFlightEnabled;
+
+    private final List<SingleFlight<?, ?>> singleFlights = new ArrayList<>();
+    private final SingleFlight<K, Optional<E>> loadsById = singleFlight();
+
+    private AggregateCounters counters;
+
+    protected AbstractPersistenceProvider(Class<E> entityType,
+                                          R persistenceRepository,
+                                          EntityManager entityManager,
+                                          AggregateMetadata<A, ID> metadata) {
+        this.entityType = entityType;
+        this.persistenceRepository = persistenceRepository;
+        this.entityManager = entityManager;
+        this.metadata = metadata;
+    }
+
+    protected abstract K toPersistenceId(ID id);
+
+    protected abstract K entityId(E persistenceEntity);
+
+    protected abstract Long entityVersion(E persistenceEntity);
+
+    protected abstract E toPersistenceEntity(A aggregateRoot);
+
+    protected abstract E merge(E persistenceEntity, A aggregateRoot);
+
+    protected abstract E mergeChanges(E persistenceEntity, A aggregateRoot);
+
+    protected abstract A toDomainEntity(E persistenceEntity);
+
+    protected List<E> findAllHydratedById(Collection<K> ids) {
+        return persistenceRepository.findAllById(ids);
+    }
+
+    @Autowired(required = false)
+    void setCounters(AggregateCounters counters) {
+        this.counters = counters;
+        counters.register(entityType, persistenceRepository::count, this::countByBucket);
+    }
+
+    protected String countBucket(E persistenceEntity) {
+        return null;
+    }
+
+    protected Map<String, Long> countByBucket() {
+        return Map.of();
+    }
+
+    protected OptionalLong countedInMemory(String bucket) {
+        return counters == null ? OptionalLong.empty() : counters.count(entityType, bucket);
+    }
+
+    @Override
+    public Optional<A> ofId(ID id) {
+        K persistenceId = toPersistenceId(id);
+        return coalesced(loadsById, persistenceId, () -> persistenceRepository.findById(persistenceId))
+                .map(this::toDomainEntity);
+    }
+
+    @Override
+    public Map<ID, A> ofIds(Collection<ID> ids) {
+        Map<K, ID> requestedIds = new LinkedHashMap<>(ids.size() * 4 / 3 + 1);
+        for (ID id : ids) {
+            requestedIds.put(toPersistenceId(id), id);
+        }
+
+        Map<K, E> foundEntities = new HashMap<>(requestedIds.size() * 4 / 3 + 1);
+        List<K> persistenceIds = new ArrayList<>(requestedIds.keySet());
+        for (int start = 0; start < persistenceIds.size(); start += multiGetChunkSize) {
+            List<K> chunk = persistenceIds.subList(start, Math.min(start + multiGetChunkSize, persistenceIds.size()));
+            for (E persistenceEntity : findAllHydratedById(chunk)) {
+                foundEntities.put(entityId(persistenceEntity), persistenceEntity);
+            }
+        }
+
+        Map<ID, A> aggregateRoots = new LinkedHashMap<>(foundEntities.size() * 4 / 3 + 1);
+        for (Map.Entry<K, ID> requestedId : requestedIds.entrySet()) {
+            E persistenceEntity = foundEntities.get(requestedId.getKey());
+            if (persistenceEntity != null) {
+                aggregateRoots.put(requestedId.getValue(), toDomainEntity(persistenceEntity));
+            }
+        }
+        return aggregateRoots;
+    }
+
+    @Override
+    public boolean exists(ID id) {
+        return persistenceRepository.existsById(toPersistenceId(id));
+    }
+
+    @Override
+    public long count() {
+        if (counters != null) {
+            OptionalLong counted = counters.count(entityType);
+            if (counted.isPresent()) {
+                return counted.getAsLong();
+            }
+        }
+        return persistenceRepository.count();
+    }
+
+    @Override
+    @Transactional(readOnly = false)
+    public void add(A aggregateRoot) {
+        if (isUnchanged(aggregateRoot)) {
+            return;
+        }
+
+        if (writeMode == AggregateWriteMode.PRE_READ) {
+            persistenceRepository.findById(persistenceIdOf(aggregateRoot))
+                    .ifPresentOrElse(
+                            (persistenceEntity) -> update(aggregateRoot, persistenceEntity),
+                            ()-> insert(aggregateRoot)
+                    );
+            return;
+        }
+
+        if (metadata.version(aggregateRoot) == null) {
+            insert(aggregateRoot);
+        } else {
+            update(aggregateRoot);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = false)
+    public void addAll(Collection<A> aggregateRoots) {
+        List<A> pending = new ArrayList<>(aggregateRoots.size());
+        for (A aggregateRoot : aggregateRoots) {
+            if (!isUnchanged(aggregateRoot)) {
+                pending.add(aggregateRoot);
+            }
+        }
+        for (int start = 0; start < pending.size(); start += batchSize) {
+            addChunk(pending.subList(start, Math.min(start + batchSize, pending.size())));
+        }
+    }
+
+    protected SingleFlight<K, Optional<E>> loadsById() {
+        return loadsById;
+    }
+
+    protected AggregateWriteMode writeMode() {
+        return writeMode;
+    }
+
+    protected <Q> SingleFlight<Q, Optional<E>> singleFlight() {
+        SingleFlight<Q, Optional<E>> singleFlight = new SingleFlight<>();
+        singleFlights.add(singleFlight);
+        return singleFlight;
+    }
+
+    protected <Q> Optional<E> coalesced(SingleFlight<Q, Optional<E>> flights, Q key, Supplier<Optional<E>> loader) {
+        if (!canCoalesce()) {
+            return loader.get();
+        }
+        return flights.execute(key, () -> loader.get().map(this::detachHydrated));
+    }
+
+    protected void deleteIfExists(K id) {
+        persistenceRepository.findById(id).ifPresent(persistenceEntity -> {
+            persistenceRepository.delete(persistenceEntity);
+            singleFlightsWritten();
+            if (counters != null) {
+                counters.removed(entityType, countBucket(persistenceEntity));
+            }
+        });
+    }
+
+    private void update(A aggregateRoot, E persistenceEntity) {
+        String bucketBefore = countBucket(persistenceEntity);
+        persistenceEntity = merge(persistenceEntity, aggregateRoot);
+        entityManager.detach(persistenceEntity);
+        persistenceEntity = persistenceRepository.saveAndFlush(persistenceEntity);
+        countMoved(bucketBefore, persistenceEntity);
+        markPersisted(aggregateRoot, persistenceEntity);
+    }
+
+    private void insert(A aggregateRoot) {
+        E persistenceEntity = toPersistenceEntity(aggregateRoot);
+        persistenceRepository.saveAndFlush(persistenceEntity);
+        countAdded(persistenceEntity);
+        markPersisted(aggregateRoot, persistenceEntity);
+    }
+
+    private void update(A aggregateRoot) {
+        K id = persistenceIdOf(aggregateRoot);
+        E persistenceEntity = entityManager.find(entityType, id);
+        if (persistenceEntity == null) {
+            throw new ObjectOptimisticLockingFailureException(entityType, id);
+        }
+        verifyVersion(aggregateRoot, persistenceEntity);
+        String bucketBefore = countBucket(persistenceEntity);
+        mergeChanges(persistenceEntity, aggregateRoot);
+        persistenceRepository.flush();
+        countMoved(bucketBefore, persistenceEntity);
+        markPersisted(aggregateRoot, persistenceEntity);
+    }
+
+    private void addChunk(List<A> chunk) {
+        List<K> ids = new ArrayList<>(chunk.size());
+        for (A aggregateRoot : chunk) {
+            if (requiresPreRead(aggregateRoot)) {
+                ids.add(persistenceIdOf(aggregateRoot));
+            }
+        }
+
+        Map<K, E> existingEntities = new HashMap<>();
+        for (E persistenceEntity : persistenceRepository.findAllById(ids)) {
+            existingEntities.put(entityId(persistenceEntity), persistenceEntity);
+        }
+
+        Map<A, E> writtenEntities = new LinkedHashMap<>();
+        List<E> insertedEntities = new ArrayList<>();
+        Map<E, String> bucketsBefore = new IdentityHashMap<>();
+        for (A aggregateRoot : chunk) {
+            K id = persistenceIdOf(aggregateRoot);
+            E persistenceEntity = existingEntities.get(id);
+            if (persistenceEntity == null) {
+                if (metadata.version(aggregateRoot) != null) {
+                    throw new ObjectOptimisticLockingFailureException(entityType, id);
+                }
+                persistenceEntity = toPersistenceEntity(aggregateRoot);
+                entityManager.persist(persistenceEntity);
+                insertedEntities.add(persistenceEntity);
+            } else {
+                bucketsBefore.put(persistenceEntity, countBucket(persistenceEntity));
+                if (metadata.version(aggregateRoot) == null) {
+                    merge(persistenceEntity, aggregateRoot);
+                } else {
+                    verifyVersion(aggregateRoot, persistenceEntity);
+                    mergeChanges(persistenceEntity, aggregateRoot);
+                }
+            }
+            writtenEntities.put(aggregateRoot, persistenceEntity);
+        }
+
+        persistenceRepository.flush();
+        insertedEntities.forEach(this::countAdded);
+        bucketsBefore.forEach((persistenceEntity, bucketBefore) -> countMoved(bucketBefore, persistenceEntity));
+        writtenEntities.forEach(this::markPersisted);
+        writtenEntities.values().forEach(entityManager::detach);
+    }
+
+    private boolean canCoalesce() {
+        return singleFlightEnabled
+                && (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    private E detachHydrated(E persistenceEntity) {
+        toDomainEntity(persistenceEntity);
+        entityManager.detach(persistenceEntity);
+        return persistenceEntity;
+    }
+
+    private K persistenceIdOf(A aggregateRoot) {
+        return toPersistenceId(metadata.id(aggregateRoot));
+    }
+
+    private boolean isUnchanged(A aggregateRoot) {
+        return metadata.version(aggregateRoot) != null && !aggregateRoot.changes().hasChanges();
+    }
+
+    private boolean requiresPreRead(A aggregateRoot) {
+        return writeMode == AggregateWriteMode.PRE_READ || metadata.version(aggregateRoot) != null;
+    }
+
+    private void verifyVersion(A aggregateRoot, E persistenceEntity) {
+        if (!Objects.equals(metadata.version(aggregateRoot), entityVersion(persistenceEntity))) {
+            throw new ObjectOptimisticLockingFailureException(entityType, entityId(persistenceEntity));
+        }
+    }
+
+    private void countAdded(E persistenceEntity) {
+        if (counters != null) {
+            counters.added(entityType, countBucket(persistenceEntity));
+        }
+    }
+
+    private void countMoved(String bucketBefore, E persistenceEntity) {
+        if (counters == null) {
+            return;
+        }
+        String bucketAfter = countBucket(persistenceEntity);
+        if (!Objects.equals(bucketBefore, bucketAfter)) {
+            counters.moved(entityType, bucketBefore, bucketAfter);
+        }
+    }
+
+    private void markPersisted(A aggregateRoot, E persistenceEntity) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            RestoreOnRollback.current().written(aggregateRoot, metadata);
+        }
+        metadata.version(aggregateRoot, entityVersion(persistenceEntity));
+        aggregateRoot.changes().clear();
+        singleFlightsWritten();
+    }
+
+    /*
+     * Loads already in flight may have read the rows before this write. Once the transaction completes, later
+     * readers stop joining them, so the writer never gets its own aggregate back as it was before the write.
+     */
+    protected void singleFlightsWritten() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            singleFlights.forEach(SingleFlight::written);
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof SingleFlightsWritten written && written.singleFlights() == singleFlights) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new SingleFlightsWritten(singleFlights));
+    }
+
+    private record SingleFlightsWritten(List<SingleFlight<?, ?>> singleFlights) implements TransactionSynchronization {
+
+        @Override
+        public void afterCompletion(int status) {
+            singleFlights.forEach(SingleFlight::written);
+        }
+    }
+
+    /*
+     * markPersisted applies the new version and clears the tracker as soon as the statements are flushed, so
+     * later writes in the same transaction see the aggregate as clean. If the transaction then rolls back, the
+     * aggregate is put back to its version before the transaction and every change written since is tracked
+     * again, so a retried add writes it instead of skipping it as unchanged.
+     */
+    private static final class RestoreOnRollback implements TransactionSynchronization {
+
+        private final Map<AggregateRoot<?>, WrittenState<?, ?>> writtenStates = new IdentityHashMap<>();
+
+        static RestoreOnRollback current() {
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                if (synchronization instanceof RestoreOnRollback restoreOnRollback) {
+                    return restoreOnRollback;
+                }
+            }
+            RestoreOnRollback restoreOnRollback = new RestoreOnRollback();
+            TransactionSynchronizationManager.registerSynchronization(restoreOnRollback);
+            return restoreOnRollback;
+        }
+
+        <A extends AggregateRoot<ID>, ID> void written(A aggregateRoot, AggregateMetadata<A, ID> metadata) {
+            WrittenState<?, ?> writtenState = writtenStates.get(aggregateRoot);
+            if (writtenState == null) {
+                Long version = metadata.version(aggregateRoot);
+                writtenStates.put(aggregateRoot,
+                        WrittenState.of(aggregateRoot.changes(), () -> metadata.version(aggregateRoot, version)));
+            } else {
+                writtenState.written();
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status != STATUS_COMMITTED) {
+                writtenStates.values().forEach(WrittenState::restore);
+            }
+        }
+    }
+
+    private static final class WrittenState<F extends Enum<F>, I> {
+
+        private final ChangeTracker<F, I> changes;
+        private final Runnable restoreVersion;
+        private ChangeTracker.Snapshot<F, I> written;
+
+        private WrittenState(ChangeTracker<F, I> changes, Runnable restoreVersion) {
+            this.changes = changes;
+            this.restoreVersion = restoreVersion;
+            this.written = changes.snapshot();
+        }
+
+        static <F extends Enum<F>, I> WrittenState<F, I> of(ChangeTracker<F, I> changes, Runnable restoreVersion) {
+            return new WrittenState<>(changes, restoreVersion);
+        }
+
+        void written() {
+            written = written.then(changes.snapshot());
+        }
+
+        void restore() {
+            restoreVersion.run();
+            changes.restore(written);
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "algashop.persistence.counters.enabled", havingValue = "true", matchIfMissing = true)
+public class AggregateCounters {
+
+    private final Map<Class<?>, Counts> counts = new ConcurrentHashMap<>();
+    private final Duration reconcileInterval;
+    private ScheduledExecutorService scheduler;
+
+    public AggregateCounters(@Value("${algashop.persistence.counters.reconcile-interval:5m}") Duration reconcileInterval) {
+        this.reconcileInterval = reconcileInterval;
+    }
+
+    public void register(Class<?> aggregateType,
+                         Supplier<Long> totalInDatabase,
+                         Supplier<Map<String, Long>> bucketsInDatabase) {
+        counts.put(aggregateType, new Counts(totalInDatabase, bucketsInDatabase));
+    }
+
+    @Order(2)
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reconcile();
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("aggregate-counters").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::reconcileQuietly,
+                reconcileInterval.toMillis(), reconcileInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public OptionalLong count(Class<?> aggregateType) {
+        Counts aggregateCounts = counts.get(aggregateType);
+        if (aggregateCounts == null || !aggregateCounts.seeded) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(aggregateCounts.total.get());
+    }
+
+    public OptionalLong count(Class<?> aggregateType, String bucket) {
+        Counts aggregateCounts = counts.get(aggregateType);
+        if (aggregateCounts == null || !aggregateCounts.seeded) {
+            return OptionalLong.empty();
+        }
+        AtomicLong bucketCount = aggregateCounts.buckets.get(bucket);
+        return OptionalLong.of(bucketCount == null ? 0L : bucketCount.get());
+    }
+
+    public void added(Class<?> aggregateType, String bucket) {
+        afterCommit(aggregateType, counts -> counts.apply(bucket, 1));
+    }
+
+    public void removed(Class<?> aggregateType, String bucket) {
+        afterCommit(aggregateType, counts -> counts.apply(bucket, -1));
+    }
+
+    public void moved(Class<?> aggregateType, String fromBucket, String toBucket) {
+        afterCommit(aggregateType, counts -> counts.move(fromBucket, toBucket));
+    }
+
+    public void reconcile() {
+        counts.forEach((aggregateType, aggregateCounts) -> {
+            if (!aggregateCounts.reconcile()) {
+                log.debug("Skipped {} counters reconciliation, writes were applied meanwhile",
+                        aggregateType.getSimpleName());
+            }
+        });
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("Could not reconcile aggregate counters", e);
+        }
+    }
+
+    private void afterCommit(Class<?> aggregateType, Consumer<Counts> delta) {
+        Counts aggregateCounts = counts.get(aggregateType);
+        if (aggregateCounts == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            delta.accept(aggregateCounts);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                delta.accept(aggregateCounts);
+            }
+        });
+    }
+
+    private static final class Counts {
+        private final Supplier<Long> totalInDatabase;
+        private final Supplier<Map<String, Long>> bucketsInDatabase;
+        private final AtomicLong total = new AtomicLong();
+        private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final AtomicLong modifications = new AtomicLong();
+        private volatile boolean seeded;
+
+        private Counts(Supplier<Long> totalInDatabase, Supplier<Map<String, Long>> bucketsInDatabase) {
+            this.totalInDatabase = totalInDatabase;
+            this.bucketsInDatabase = bucketsInDatabase;
+        }
+
+        private void apply(String bucket, long delta) {
+            modifications.incrementAndGet();
+            total.addAndGet(delta);
+            if (bucket != null) {
+                buckets.computeIfAbsent(bucket, b -> new AtomicLong()).addAndGet(delta);
+            }
+        }
+
+        private void move(String fromBucket, String toBucket) {
+            modifications.incrementAndGet();
+            if (fromBucket != null) {
+                buckets.computeIfAbsent(fromBucket, b -> new AtomicLong()).decrementAndGet();
+            }
+            if (toBucket != null) {
+                buckets.computeIfAbsent(toBucket, b -> new AtomicLong()).incrementAndGet();
+            }
+        }
+
+        private synchronized boolean reconcile() {
+            long before = modifications.get();
+            long databaseTotal = totalInDatabase.get();
+            Map<String, Long> databaseBuckets = bucketsInDatabase.get();
+            if (seeded && modifications.get() != before) {
+                return false;
+            }
+
+            total.set(databaseTotal);
+            buckets.keySet().retainAll(databaseBuckets.keySet());
+            databaseBuckets.forEach((bucket, count) ->
+                    buckets.computeIfAbsent(bucket, b -> new AtomicLong()).set(count));
+            seeded = true;
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import com.algaworks.algashop.ordering.domain.model.entity.AggregateRoot;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.BiConsumer;
+
+public final class AggregateMetadata<A extends AggregateRoot<ID>, ID> {
+
+    private final Class<A> aggregateType;
+    private final BiConsumer<A, Long> versionWriter;
+
+    AggregateMetadata(Class<A> aggregateType, BiConsumer<A, Long> versionWriter) {
+        this.aggregateType = aggregateType;
+        this.versionWriter = versionWriter;
+    }
+
+    /*
+     * Aggregates expose no version setter, so writing it back after a save needs a field handle. Callers keep the
+     * handle in a static final field and set it with the concrete aggregate type, which lets the JIT treat it as a
+     * constant and link an exact call site; a handle held per instance and invoked through the erased type would not.
+     */
+    static VarHandle versionHandleOf(Class<? extends AggregateRoot<?>> aggregateType) {
+        try {
+            return MethodHandles.privateLookupIn(aggregateType, MethodHandles.lookup())
+                    .findVarHandle(aggregateType, "version", Long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot resolve version of " + aggregateType.getName(), e);
+        }
+    }
+
+    public Class<A> aggregateType() {
+        return aggregateType;
+    }
+
+    public ID id(A aggregateRoot) {
+        return aggregateRoot.id();
+    }
+
+    public Long version(A aggregateRoot) {
+        return aggregateRoot.version();
+    }
+
+    public void version(A aggregateRoot, Long value) {
+        versionWriter.accept(aggregateRoot, value);
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import com.algaworks.algashop.ordering.domain.model.entity.AggregateRoot;
+import com.algaworks.algashop.ordering.domain.model.entity.Customer;
+import com.algaworks.algashop.ordering.domain.model.entity.Order;
+import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCart;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.OrderId;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.ShoppingCartId;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.VarHandle;
+import java.util.Map;
+
+@Component
+public class AggregateMetadataRegistry {
+
+    private static final VarHandle CUSTOMER_VERSION = AggregateMetadata.versionHandleOf(Customer.class);
+    private static final VarHandle ORDER_VERSION = AggregateMetadata.versionHandleOf(Order.class);
+    private static final VarHandle SHOPPING_CART_VERSION = AggregateMetadata.versionHandleOf(ShoppingCart.class);
+
+    private final Map<Class<?>, AggregateMetadata<?, ?>> metadata = Map.of(
+            Customer.class, new AggregateMetadata<Customer, CustomerId>(Customer.class,
+                    (customer, version) -> CUSTOMER_VERSION.set(customer, version)),
+            Order.class, new AggregateMetadata<Order, OrderId>(Order.class,
+                    (order, version) -> ORDER_VERSION.set(order, version)),
+            ShoppingCart.class, new AggregateMetadata<ShoppingCart, ShoppingCartId>(ShoppingCart.class,
+                    (shoppingCart, version) -> SHOPPING_CART_VERSION.set(shoppingCart, version))
+    );
+
+    @SuppressWarnings("unchecked")
+    public <A extends AggregateRoot<ID>, ID> AggregateMetadata<A, ID> of(Class<A> aggregateType) {
+        AggregateMetadata<?, ?> aggregateMetadata = metadata.get(aggregateType);
+        if (aggregateMetadata == null) {
+            throw new IllegalArgumentException("No metadata registered for " + aggregateType.getName());
+        }
+        return (AggregateMetadata<A, ID>) aggregateMetadata;
+    }
+
+}
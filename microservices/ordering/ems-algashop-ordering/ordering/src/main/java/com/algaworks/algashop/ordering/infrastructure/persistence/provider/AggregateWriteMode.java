@@ -0,0 +1,6 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+public enum AggregateWriteMode {
+    PRE_READ,
+    VERSION_DRIVEN
+}
@@ -0,0 +1,154 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import com.algaworks.algashop.ordering.infrastructure.persistence.entity.CustomerPersistenceEntity;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+@Component
+@ConditionalOnProperty(name = "algashop.customer.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CustomerCache {
+
+    private final Cache<UUID, Entry> customers;
+    private final Cache<String, UUID> idsByEmail;
+
+    public CustomerCache(MeterRegistry meterRegistry,
+                         @Value("${algashop.customer.cache.maximum-size:10000}") long maximumSize,
+                         @Value("${algashop.customer.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.customers = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.idsByEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, customers, "customers");
+        Gauge.builder("algashop.customer.cache.hit_ratio", customers, cache -> cache.stats().hitRate())
+                .register(meterRegistry);
+    }
+
+    public Optional<CustomerPersistenceEntity> ofId(UUID id) {
+        if (writtenInCurrentTransaction().contains(id)) {
+            return Optional.empty();
+        }
+        Entry entry = customers.getIfPresent(id);
+        if (entry == null || entry.persistenceEntity() == null) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.persistenceEntity());
+    }
+
+    public Optional<CustomerPersistenceEntity> ofEmail(String normalizedEmail) {
+        UUID id = idsByEmail.getIfPresent(normalizedEmail);
+        if (id == null) {
+            return Optional.empty();
+        }
+        return ofId(id).filter(persistenceEntity -> normalizedEmail.equals(persistenceEntity.getEmailNormalized()));
+    }
+
+    public void put(CustomerPersistenceEntity persistenceEntity) {
+        UUID id = persistenceEntity.getId();
+        if (persistenceEntity.getVersion() == null || writtenInCurrentTransaction().contains(id)) {
+            return;
+        }
+        Entry loaded = new Entry(snapshotOf(persistenceEntity), persistenceEntity.getVersion());
+        customers.asMap().compute(id, (key, cached) ->
+                cached == null || cached.version() <= loaded.version() ? loaded : cached);
+        idsByEmail.put(persistenceEntity.getEmailNormalized(), id);
+    }
+
+    public void written(UUID id, Long version) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(id, version, true);
+            return;
+        }
+        Set<UUID> written = writtenInCurrentTransaction();
+        if (written.isEmpty()) {
+            TransactionSynchronizationManager.bindResource(this, written);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CustomerCache.this);
+                }
+            });
+        }
+        written.add(id);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                invalidate(id, version, status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    public void invalidate(UUID id) {
+        customers.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        customers.invalidateAll();
+        idsByEmail.invalidateAll();
+    }
+
+    private void invalidate(UUID id, Long version, boolean committed) {
+        if (!committed || version == null) {
+            customers.invalidate(id);
+            return;
+        }
+        Entry tombstone = new Entry(null, version);
+        customers.asMap().compute(id, (key, cached) ->
+                cached == null || cached.version() < version ? tombstone : cached);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<UUID> writtenInCurrentTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new HashSet<>();
+        }
+        Set<UUID> written = (Set<UUID>) TransactionSynchronizationManager.getResource(this);
+        return written != null ? written : new HashSet<>();
+    }
+
+    private CustomerPersistenceEntity snapshotOf(CustomerPersistenceEntity persistenceEntity) {
+        return CustomerPersistenceEntity.builder()
+                .id(persistenceEntity.getId())
+                .firstName(persistenceEntity.getFirstName())
+                .lastName(persistenceEntity.getLastName())
+                .birthDate(persistenceEntity.getBirthDate())
+                .email(persistenceEntity.getEmail())
+                .emailNormalized(persistenceEntity.getEmailNormalized())
+                .phone(persistenceEntity.getPhone())
+                .document(persistenceEntity.getDocument())
+                .promotionNotificationsAllowed(persistenceEntity.getPromotionNotificationsAllowed())
+                .archived(persistenceEntity.getArchived())
+                .registeredAt(persistenceEntity.getRegisteredAt())
+                .archivedAt(persistenceEntity.getArchivedAt())
+                .address(persistenceEntity.getAddress())
+                .loyaltyPoints(persistenceEntity.getLoyaltyPoints())
+                .version(persistenceEntity.getVersion())
+                .createdByUserId(persistenceEntity.getCreatedByUserId())
+                .lastModifiedAt(persistenceEntity.getLastModifiedAt())
+                .lastModifiedByUserId(persistenceEntity.getLastModifiedByUserId())
+                .build();
+    }
+
+    private record Entry(CustomerPersistenceEntity persistenceEntity, long version) {
+    }
+
+}
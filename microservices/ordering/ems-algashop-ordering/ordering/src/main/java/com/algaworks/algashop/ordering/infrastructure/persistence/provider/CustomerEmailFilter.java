@@ -0,0 +1,84 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import com.algaworks.algashop.ordering.infrastructure.persistence.repository.CustomerPersistenceEntityRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "algashop.customer.email-filter.enabled", havingValue = "true", matchIfMissing = true)
+public class CustomerEmailFilter {
+
+    private final CustomerPersistenceEntityRepository persistenceRepository;
+    private final BloomFilter bloomFilter;
+    private final Counter definitelyAbsent;
+    private final Counter possiblyPresent;
+    private volatile boolean ready;
+
+    public CustomerEmailFilter(CustomerPersistenceEntityRepository persistenceRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${algashop.customer.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                               @Value("${algashop.customer.email-filter.fpp:0.01}") double falsePositiveProbability) {
+        this.persistenceRepository = persistenceRepository;
+        this.bloomFilter = new BloomFilter(expectedInsertions, falsePositiveProbability);
+
+        Gauge.builder("algashop.customer.email_filter.memory", bloomFilter, BloomFilter::memoryBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("algashop.customer.email_filter.insertions", bloomFilter, BloomFilter::approximateInsertions)
+                .register(meterRegistry);
+        Gauge.builder("algashop.customer.email_filter.fpp.configured", () -> falsePositiveProbability)
+                .register(meterRegistry);
+        Gauge.builder("algashop.customer.email_filter.fpp.estimated", bloomFilter,
+                        BloomFilter::estimatedFalsePositiveProbability)
+                .register(meterRegistry);
+        this.definitelyAbsent = Counter.builder("algashop.customer.email_filter.checks")
+                .tag("result", "absent")
+                .register(meterRegistry);
+        this.possiblyPresent = Counter.builder("algashop.customer.email_filter.checks")
+                .tag("result", "maybe")
+                .register(meterRegistry);
+    }
+
+    @Order(1)
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        try (Stream<String> emails = persistenceRepository.streamNormalizedEmails()) {
+            emails.forEach(bloomFilter::put);
+        }
+        ready = true;
+        log.info("Customer email filter built with {} bits and {} hash functions",
+                bloomFilter.bitSize(), bloomFilter.hashFunctions());
+    }
+
+    public boolean mightExist(String normalizedEmail) {
+        if (!ready || bloomFilter.mightContain(normalizedEmail)) {
+            possiblyPresent.increment();
+            return true;
+        }
+        definitelyAbsent.increment();
+        return false;
+    }
+
+    public void put(String normalizedEmail) {
+        if (normalizedEmail != null) {
+            bloomFilter.put(normalizedEmail);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+}
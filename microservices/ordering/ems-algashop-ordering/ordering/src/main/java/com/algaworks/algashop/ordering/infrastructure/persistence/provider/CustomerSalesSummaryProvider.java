@@ -0,0 +1,269 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import com.algaworks.algashop.ordering.domain.model.entity.ChangeTracker;
+import com.algaworks.algashop.ordering.domain.model.entity.Order;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Money;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.OrderItemId;
+import com.algaworks.algashop.ordering.infrastructure.persistence.entity.CustomerSalesSummaryPersistenceEntity;
+import com.algaworks.algashop.ordering.infrastructure.persistence.repository.CustomerSalesSummaryPersistenceEntityRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@Transactional(readOnly = true)
+public class CustomerSalesSummaryProvider implements SmartLifecycle {
+
+    /*
+     * Lower than the web server's lifecycle phase, so the summary is verified and rebuilt before any request can
+     * write orders. verify() reads orders and summaries in separate statements and rebuild() deletes every row,
+     * so neither is safe to run next to concurrent writes.
+     */
+    private static final int STARTUP_PHASE = 0;
+
+    private final CustomerSalesSummaryPersistenceEntityRepository persistenceRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate summaryCreation;
+    private final boolean verifyOnStartup;
+    private volatile boolean running;
+
+    public CustomerSalesSummaryProvider(CustomerSalesSummaryPersistenceEntityRepository persistenceRepository,
+                                        EntityManager entityManager,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${algashop.order.sales-summary.verify-on-startup:true}") boolean verifyOnStartup) {
+        this.persistenceRepository = persistenceRepository;
+        this.entityManager = entityManager;
+        this.summaryCreation = new TransactionTemplate(transactionManager);
+        this.summaryCreation.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.verifyOnStartup = verifyOnStartup;
+    }
+
+    public Optional<SalesDelta> deltaOf(Order order) {
+        if (order.placedAt() == null) {
+            return Optional.empty();
+        }
+        ChangeTracker<Order.Field, OrderItemId> changes = order.changes();
+        boolean counted = isCounted(order.paidAt(), order.canceledAt());
+        boolean wasCounted = order.version() != null && isCounted(
+                changes.isDirty(Order.Field.PAID_AT) ? null : order.paidAt(),
+                changes.isDirty(Order.Field.CANCELED_AT) ? null : order.canceledAt()
+        );
+
+        if (counted == wasCounted) {
+            return Optional.empty();
+        }
+
+        BigDecimal amount = order.totalAmount().value();
+        return Optional.of(new SalesDelta(
+                order.customerId().value(),
+                salesYearOf(order.placedAt()),
+                counted ? 1 : -1,
+                counted ? amount : amount.negate()
+        ));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Collection<SalesDelta> deltas) {
+        Map<CustomerSalesSummaryPersistenceEntity.Key, SalesDelta> merged = new TreeMap<>(
+                Comparator.comparing(CustomerSalesSummaryPersistenceEntity.Key::customerId)
+                        .thenComparing(CustomerSalesSummaryPersistenceEntity.Key::salesYear));
+        for (SalesDelta delta : deltas) {
+            merged.merge(delta.key(), delta, SalesDelta::plus);
+        }
+
+        for (SalesDelta delta : merged.values()) {
+            if (increment(delta) == 0) {
+                createEmptySummary(delta.key());
+                if (increment(delta) == 0) {
+                    throw new IllegalStateException("Sales summary " + delta.key() + " could not be created");
+                }
+            }
+        }
+    }
+
+    public long salesQuantity(CustomerId customerId, Year year) {
+        return persistenceRepository.salesQuantityOf(customerId.value(), year.getValue());
+    }
+
+    public Money totalSold(CustomerId customerId) {
+        return new Money(persistenceRepository.totalSoldOf(customerId.value()));
+    }
+
+    @Transactional
+    public void rebuild() {
+        entityManager.flush();
+        entityManager.clear();
+        persistenceRepository.deleteAllInBatch();
+        summarizeOrders().forEach(entityManager::persist);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    public List<Discrepancy> verify() {
+        Map<CustomerSalesSummaryPersistenceEntity.Key, CustomerSalesSummaryPersistenceEntity> expected =
+                byKey(summarizeOrders());
+        Map<CustomerSalesSummaryPersistenceEntity.Key, CustomerSalesSummaryPersistenceEntity> actual =
+                byKey(persistenceRepository.currentSummaries());
+
+        Set<CustomerSalesSummaryPersistenceEntity.Key> keys = new LinkedHashSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+
+        List<Discrepancy> discrepancies = new ArrayList<>();
+        for (CustomerSalesSummaryPersistenceEntity.Key key : keys) {
+            Discrepancy discrepancy = new Discrepancy(
+                    key.customerId(),
+                    key.salesYear(),
+                    quantityOf(expected.get(key)),
+                    quantityOf(actual.get(key)),
+                    totalOf(expected.get(key)),
+                    totalOf(actual.get(key))
+            );
+            if (!discrepancy.isConsistent()) {
+                discrepancies.add(discrepancy);
+            }
+        }
+        return discrepancies;
+    }
+
+    @Override
+    @Transactional
+    public void start() {
+        running = true;
+        if (!verifyOnStartup) {
+            return;
+        }
+
+        List<Discrepancy> discrepancies = verify();
+        if (!discrepancies.isEmpty()) {
+            log.warn("Customer sales summary has {} inconsistent rows, rebuilding it", discrepancies.size());
+            rebuild();
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return STARTUP_PHASE;
+    }
+
+    private boolean isCounted(OffsetDateTime paidAt, OffsetDateTime canceledAt) {
+        return paidAt != null && canceledAt == null;
+    }
+
+    private int increment(SalesDelta delta) {
+        return persistenceRepository.increment(delta.customerId(), delta.salesYear(), delta.quantity(), delta.amount());
+    }
+
+    /*
+     * Two first sales of a customer in the same year would both find no row to increment, and the duplicate key of
+     * the slower insert would fail its whole order write, or mark it rollback-only if caught. The empty row is
+     * created in a transaction of its own, where a duplicate just means another writer created it first, and every
+     * sale is then counted by the atomic increment alone.
+     */
+    private void createEmptySummary(CustomerSalesSummaryPersistenceEntity.Key key) {
+        try {
+            summaryCreation.executeWithoutResult(status -> {
+                entityManager.persist(new CustomerSalesSummaryPersistenceEntity(
+                        key.customerId(), key.salesYear(), 0L, BigDecimal.ZERO));
+                entityManager.flush();
+            });
+        } catch (PersistenceException | DataAccessException e) {
+            log.debug("Sales summary {} was created concurrently", key, e);
+        }
+    }
+
+    /*
+     * Years are bucketed in UTC, as in deltaOf and the yearly order lookups, and each year is a placed_at range so
+     * an order placed near midnight lands in the same row whichever offset it was stored with.
+     */
+    private List<CustomerSalesSummaryPersistenceEntity> summarizeOrders() {
+        CustomerSalesSummaryPersistenceEntityRepository.SalesPeriod period = persistenceRepository.salesPeriod();
+        if (period == null || period.getFirstPlacedAt() == null) {
+            return List.of();
+        }
+
+        List<CustomerSalesSummaryPersistenceEntity> summaries = new ArrayList<>();
+        int lastYear = salesYearOf(period.getLastPlacedAt());
+        for (int salesYear = salesYearOf(period.getFirstPlacedAt()); salesYear <= lastYear; salesYear++) {
+            for (CustomerSalesSummaryPersistenceEntityRepository.SalesTotals totals :
+                    persistenceRepository.salesPlacedBetween(startOf(salesYear), startOf(salesYear + 1))) {
+                summaries.add(new CustomerSalesSummaryPersistenceEntity(
+                        totals.getCustomerId(), salesYear, totals.getSalesQuantity(), totals.getTotalSold()));
+            }
+        }
+        return summaries;
+    }
+
+    private static int salesYearOf(OffsetDateTime placedAt) {
+        return placedAt.withOffsetSameInstant(ZoneOffset.UTC).getYear();
+    }
+
+    private static OffsetDateTime startOf(int salesYear) {
+        return Year.of(salesYear).atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+    }
+
+    private Map<CustomerSalesSummaryPersistenceEntity.Key, CustomerSalesSummaryPersistenceEntity> byKey(
+            List<CustomerSalesSummaryPersistenceEntity> summaries) {
+        return summaries.stream().collect(Collectors.toMap(
+                summary -> new CustomerSalesSummaryPersistenceEntity.Key(summary.getCustomerId(), summary.getSalesYear()),
+                Function.identity()
+        ));
+    }
+
+    private long quantityOf(CustomerSalesSummaryPersistenceEntity summary) {
+        return summary == null ? 0L : summary.getSalesQuantity();
+    }
+
+    private BigDecimal totalOf(CustomerSalesSummaryPersistenceEntity summary) {
+        return summary == null ? BigDecimal.ZERO : summary.getTotalSold();
+    }
+
+    public record SalesDelta(UUID customerId, int salesYear, long quantity, BigDecimal amount) {
+
+        CustomerSalesSummaryPersistenceEntity.Key key() {
+            return new CustomerSalesSummaryPersistenceEntity.Key(customerId, salesYear);
+        }
+
+        SalesDelta plus(SalesDelta other) {
+            return new SalesDelta(customerId, salesYear, quantity + other.quantity, amount.add(other.amount));
+        }
+    }
+
+    public record Discrepancy(UUID customerId, int salesYear,
+                              long expectedQuantity, long actualQuantity,
+                              BigDecimal expectedTotal, BigDecimal actualTotal) {
+
+        public boolean isConsistent() {
+            return expectedQuantity == actualQuantity && expectedTotal.compareTo(actualTotal) == 0;
+        }
+    }
+
+}
@@ -9,85 +9,185 @@ import com.algaworks.algashop.ordering.infrastructure.persistence.disassembler.C
 import com.algaworks.algashop.ordering.infrastructure.persistence.entity.CustomerPersistenceEntity;
 import com.algaworks.algashop.ordering.infrastructure.persistence.repository.CustomerPersistenceEntityRepository;
 import jakarta.persistence.EntityManager;
-import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.ReflectionUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.lang.reflect.Field;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
 @Component
-@RequiredArgsConstructor
 @Transactional(readOnly = true)
-public class CustomersPersistenceProvider implements Customers {
+public class CustomersPersistenceProvider
+        extends AbstractPersistenceProvider<Customer, CustomerId, CustomerPersistenceEntity, UUID, CustomerPersistenceEntityRepository>
+        implements Customers {
 
-    private final CustomerPersistenceEntityRepository persistenceRepository;
     private final CustomerPersistenceEntityAssembler assembler;
     private final CustomerPersistenceEntityDisassembler disassembler;
-
-    private final EntityManager entityManager;
+    private final CustomerEmailFilter emailFilter;
+    private final CustomerCache customerCache;
+    private final SingleFlight<String, Optional<CustomerPersistenceEntity>> loadsByEmail = singleFlight();
+
+    public CustomersPersistenceProvider(CustomerPersistenceEntityRepository persistenceRepository,
+                                        CustomerPersistenceEntityAssembler assembler,
+                                        CustomerPersistenceEntityDisassembler disassembler,
+                                        EntityManager entityManager,
+                                        AggregateMetadataRegistry metadataRegistry,
+                                        ObjectProvider<CustomerEmailFilter> emailFilter,
+                                        ObjectProvider<CustomerCache> customerCache) {
+        super(CustomerPersistenceEntity.class, persistenceRepository, entityManager, metadataRegistry.of(Customer.class));
+        this.assembler = assembler;
+        this.disassembler = disassembler;
+        this.emailFilter = emailFilter.getIfAvailable();
+        this.customerCache = customerCache.getIfAvailable();
+    }
 
     @Override
     public Optional<Customer> ofId(CustomerId customerId) {
-        return persistenceRepository.findById(customerId.value())
+        if (customerCache == null || inReadWriteTransaction()) {
+            return super.ofId(customerId);
+        }
+        return customerCache.ofId(customerId.value())
+                .filter(this::isCurrent)
+                .or(() -> coalesced(loadsById(), customerId.value(),
+                        () -> persistenceRepository.findById(customerId.value())).map(this::cache))
                 .map(disassembler::toDomainEntity);
     }
 
-    @Override
-    public boolean exists(CustomerId customerId) {
-        return persistenceRepository.existsById(customerId.value());
-    }
-
     @Override
     @Transactional(readOnly = false)
     public void add(Customer aggregateRoot) {
-        UUID customerId = aggregateRoot.id().value();
-
-        persistenceRepository.findById(customerId)
-                .ifPresentOrElse(
-                        (persistenceEntity) -> update(aggregateRoot, persistenceEntity),
-                        ()-> insert(aggregateRoot)
-                );
+        try {
+            super.add(aggregateRoot);
+        } catch (OptimisticLockingFailureException e) {
+            invalidateCached(aggregateRoot);
+            throw e;
+        }
+        rememberEmail(aggregateRoot);
+        evict(aggregateRoot);
     }
 
     @Override
-    public long count() {
-        return persistenceRepository.count();
+    @Transactional(readOnly = false)
+    public void addAll(Collection<Customer> aggregateRoots) {
+        try {
+            super.addAll(aggregateRoots);
+        } catch (OptimisticLockingFailureException e) {
+            aggregateRoots.forEach(this::invalidateCached);
+            throw e;
+        }
+        aggregateRoots.forEach(this::rememberEmail);
+        aggregateRoots.forEach(this::evict);
     }
 
     @Override
     public Optional<Customer> ofEmail(Email email) {
-        return persistenceRepository.findByEmail(email.value())
+        String normalizedEmail = CustomerPersistenceEntity.normalizeEmail(email.value());
+        if (inReadWriteTransaction()) {
+            return persistenceRepository.findByEmailNormalized(normalizedEmail).map(disassembler::toDomainEntity);
+        }
+        if (customerCache == null) {
+            return coalesced(loadsByEmail, normalizedEmail,
+                    () -> persistenceRepository.findByEmailNormalized(normalizedEmail))
+                    .map(disassembler::toDomainEntity);
+        }
+        return customerCache.ofEmail(normalizedEmail)
+                .filter(this::isCurrent)
+                .or(() -> coalesced(loadsByEmail, normalizedEmail,
+                        () -> persistenceRepository.findByEmailNormalized(normalizedEmail)).map(this::cache))
                 .map(disassembler::toDomainEntity);
     }
 
     @Override
     public boolean isEmailUnique(Email email, CustomerId exceptCustomerId) {
-        return !persistenceRepository.existsByEmailAndIdNot(email.value(), exceptCustomerId.value());
+        String normalizedEmail = CustomerPersistenceEntity.normalizeEmail(email.value());
+        if (emailFilter != null && !emailFilter.mightExist(normalizedEmail)) {
+            return true;
+        }
+        return !persistenceRepository.existsByEmailNormalizedAndIdNot(normalizedEmail, exceptCustomerId.value());
+    }
+
+    private void rememberEmail(Customer customer) {
+        if (emailFilter != null) {
+            emailFilter.put(CustomerPersistenceEntity.normalizeEmail(customer.email().value()));
+        }
+    }
+
+    /*
+     * A read-write transaction must see its own flushed changes and lock-check against the row it will write, so
+     * it always reads the database. The cache only serves read-only transactions and non-transactional callers.
+     */
+    private boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /*
+     * Other instances and direct SQL write the customer table without going through this cache, so a hit is only
+     * served after its version matches the row. Reading the version column alone keeps the hit cheaper than
+     * hydrating the customer; a mismatch or a missing row drops the entry and falls back to a full load.
+     */
+    private boolean isCurrent(CustomerPersistenceEntity cached) {
+        if (persistenceRepository.versionOf(cached.getId()).filter(cached.getVersion()::equals).isPresent()) {
+            return true;
+        }
+        customerCache.invalidate(cached.getId());
+        return false;
+    }
+
+    private CustomerPersistenceEntity cache(CustomerPersistenceEntity persistenceEntity) {
+        customerCache.put(persistenceEntity);
+        return persistenceEntity;
+    }
+
+    private void evict(Customer customer) {
+        if (customerCache != null) {
+            customerCache.written(customer.id().value(), metadata.version(customer));
+        }
     }
 
-    private void update(Customer aggregateRoot, CustomerPersistenceEntity persistenceEntity) {
-        persistenceEntity = assembler.merge(persistenceEntity, aggregateRoot);
-        entityManager.detach(persistenceEntity);
-        persistenceEntity = persistenceRepository.saveAndFlush(persistenceEntity);
-        updateVersion(aggregateRoot, persistenceEntity);
+    private void invalidateCached(Customer customer) {
+        if (customerCache != null) {
+            customerCache.invalidate(customer.id().value());
+        }
     }
 
-    private void insert(Customer aggregateRoot) {
-        CustomerPersistenceEntity persistenceEntity = assembler.fromDomain(aggregateRoot);
-        persistenceRepository.saveAndFlush(persistenceEntity);
-        updateVersion(aggregateRoot, persistenceEntity);
+    @Override
+    protected UUID toPersistenceId(CustomerId customerId) {
+        return customerId.value();
     }
 
-    @SneakyThrows
-    private void updateVersion(Customer aggregateRoot, CustomerPersistenceEntity persistenceEntity) {
-        Field version = aggregateRoot.getClass().getDeclaredField("version");
-        version.setAccessible(true);
-        ReflectionUtils.setField(version, aggregateRoot, persistenceEntity.getVersion());
-        version.setAccessible(false);
+    @Override
+    protected UUID entityId(CustomerPersistenceEntity persistenceEntity) {
+        return persistenceEntity.getId();
+    }
+
+    @Override
+    protected Long entityVersion(CustomerPersistenceEntity persistenceEntity) {
+        return persistenceEntity.getVersion();
+    }
+
+    @Override
+    protected CustomerPersistenceEntity toPersistenceEntity(Customer aggregateRoot) {
+        return assembler.fromDomain(aggregateRoot);
+    }
+
+    @Override
+    protected CustomerPersistenceEntity merge(CustomerPersistenceEntity persistenceEntity, Customer aggregateRoot) {
+        return assembler.merge(persistenceEntity, aggregateRoot);
+    }
+
+    @Override
+    protected CustomerPersistenceEntity mergeChanges(CustomerPersistenceEntity persistenceEntity, Customer aggregateRoot) {
+        return assembler.mergeChanges(persistenceEntity, aggregateRoot);
+    }
+
+    @Override
+    protected Customer toDomainEntity(CustomerPersistenceEntity persistenceEntity) {
+        return disassembler.toDomainEntity(persistenceEntity);
     }
 
-}
\ No newline at end of file
+}
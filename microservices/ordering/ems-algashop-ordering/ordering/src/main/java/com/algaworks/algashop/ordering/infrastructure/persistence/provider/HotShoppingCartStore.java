@@ -0,0 +1,221 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCart;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.ProductId;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.ShoppingCartId;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+@ConditionalOnProperty(name = "algashop.persistence.shopping-cart.hot-store.enabled", havingValue = "true")
+public class HotShoppingCartStore {
+
+    static final long CART_BYTES = 320;
+    static final long ITEM_BYTES = 280;
+
+    private final int maxCarts;
+    private final long maxBytes;
+    private final LinkedHashMap<ShoppingCartId, Entry> carts = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<CustomerId, ShoppingCartId> cartIdsByCustomer = new HashMap<>();
+    private final Object lock = new Object();
+    private final Counter hits;
+    private final Counter misses;
+    private long bytes;
+
+    /*
+     * A stored cart is only as fresh as the writes this instance has seen. Cart writes must therefore all go
+     * through the per-cart single writer, and the store refuses to start without it.
+     */
+    public HotShoppingCartStore(MeterRegistry meterRegistry,
+                                @Value("${algashop.persistence.shopping-cart.hot-store.max-carts:10000}") int maxCarts,
+                                @Value("${algashop.persistence.shopping-cart.hot-store.max-size:64MB}") DataSize maxSize,
+                                @Value("${algashop.shopping-cart.single-writer.enabled:true}") boolean singleWriterEnabled) {
+        if (!singleWriterEnabled) {
+            throw new IllegalStateException("The hot shopping cart store requires the shopping cart single writer, "
+                    + "enable algashop.shopping-cart.single-writer.enabled or disable the store");
+        }
+        this.maxCarts = maxCarts;
+        this.maxBytes = maxSize.toBytes();
+
+        Gauge.builder("algashop.shopping_cart.hot_store.carts", this, HotShoppingCartStore::size)
+                .register(meterRegistry);
+        Gauge.builder("algashop.shopping_cart.hot_store.size", this, HotShoppingCartStore::estimatedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.hits = Counter.builder("algashop.shopping_cart.hot_store.reads")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("algashop.shopping_cart.hot_store.reads")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    public Optional<ShoppingCart> ofId(ShoppingCartId shoppingCartId) {
+        Entry entry;
+        synchronized (lock) {
+            entry = carts.get(shoppingCartId);
+        }
+        return served(entry);
+    }
+
+    public Optional<ShoppingCart> ofCustomer(CustomerId customerId) {
+        Entry entry;
+        synchronized (lock) {
+            ShoppingCartId shoppingCartId = cartIdsByCustomer.get(customerId);
+            entry = shoppingCartId == null ? null : carts.get(shoppingCartId);
+        }
+        return served(entry);
+    }
+
+    public void putAfterCommit(ShoppingCart shoppingCart) {
+        if (shoppingCart.version() == null || shoppingCart.changes().hasChanges()) {
+            return;
+        }
+        ShoppingCartWriteBehindJournal.Entry snapshot = ShoppingCartWriteBehindJournal.entryOf(shoppingCart);
+        afterCommit(() -> put(snapshot));
+    }
+
+    public void evict(ShoppingCartId shoppingCartId) {
+        synchronized (lock) {
+            Entry evicted = carts.remove(shoppingCartId);
+            if (evicted != null) {
+                forget(evicted);
+            }
+        }
+    }
+
+    public void evictAfterCommit(ShoppingCartId shoppingCartId) {
+        evict(shoppingCartId);
+        afterCommit(() -> evict(shoppingCartId));
+    }
+
+    public void evictHolding(ProductId productId) {
+        Runnable eviction = () -> {
+            synchronized (lock) {
+                List<ShoppingCartId> holding = new ArrayList<>();
+                for (Entry entry : carts.values()) {
+                    if (entry.holds(productId)) {
+                        holding.add(entry.shoppingCartId());
+                    }
+                }
+                holding.forEach(this::evict);
+            }
+        };
+        eviction.run();
+        afterCommit(eviction);
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return carts.size();
+        }
+    }
+
+    public long estimatedBytes() {
+        synchronized (lock) {
+            return bytes;
+        }
+    }
+
+    static long estimatedBytes(ShoppingCart shoppingCart) {
+        return estimatedBytes(shoppingCart.items().size());
+    }
+
+    private static long estimatedBytes(int items) {
+        return CART_BYTES + ITEM_BYTES * items;
+    }
+
+    private void put(ShoppingCartWriteBehindJournal.Entry snapshot) {
+        Entry entry = new Entry(snapshot, estimatedBytes(snapshot.items().size()));
+        synchronized (lock) {
+            Entry cached = carts.get(entry.shoppingCartId());
+            if (cached != null && cached.version() > entry.version()) {
+                return;
+            }
+            if (cached != null) {
+                carts.remove(entry.shoppingCartId());
+                forget(cached);
+            }
+            carts.put(entry.shoppingCartId(), entry);
+            cartIdsByCustomer.put(entry.customerId(), entry.shoppingCartId());
+            bytes += entry.bytes();
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    /*
+     * Every hit builds a new aggregate from the immutable snapshot, so callers never share an instance and a
+     * caller's unsaved changes never leak into the store or into another caller's cart.
+     */
+    private Optional<ShoppingCart> served(Entry entry) {
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(ShoppingCartWriteBehindJournal.shoppingCartOf(entry.snapshot()));
+    }
+
+    private void evictLeastRecentlyUsed() {
+        Iterator<Entry> leastRecentlyUsed = carts.values().iterator();
+        while ((carts.size() > maxCarts || bytes > maxBytes) && leastRecentlyUsed.hasNext()) {
+            Entry evicted = leastRecentlyUsed.next();
+            leastRecentlyUsed.remove();
+            forget(evicted);
+        }
+    }
+
+    private void forget(Entry entry) {
+        bytes -= entry.bytes();
+        cartIdsByCustomer.remove(entry.customerId(), entry.shoppingCartId());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record Entry(ShoppingCartWriteBehindJournal.Entry snapshot, long bytes) {
+
+        private ShoppingCartId shoppingCartId() {
+            return new ShoppingCartId(snapshot.id());
+        }
+
+        private CustomerId customerId() {
+            return new CustomerId(snapshot.customerId());
+        }
+
+        private long version() {
+            return snapshot.version();
+        }
+
+        private boolean holds(ProductId productId) {
+            return snapshot.items().stream().anyMatch(item -> item.productId().equals(productId.value()));
+        }
+    }
+
+}
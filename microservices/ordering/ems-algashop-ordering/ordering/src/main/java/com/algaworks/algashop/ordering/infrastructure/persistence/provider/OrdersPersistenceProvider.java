@@ -1,6 +1,9 @@
 package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
 
 import com.algaworks.algashop.ordering.domain.model.entity.Order;
+import com.algaworks.algashop.ordering.domain.model.entity.OrderStatus;
+import com.algaworks.algashop.ordering.domain.model.repository.CursorPage;
+import com.algaworks.algashop.ordering.domain.model.repository.OrderFetchPlan;
 import com.algaworks.algashop.ordering.domain.model.repository.Orders;
 import com.algaworks.algashop.ordering.domain.model.valueobject.Money;
 import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
@@ -10,100 +13,217 @@ import com.algaworks.algashop.ordering.infrastructure.persistence.disassembler.O
 import com.algaworks.algashop.ordering.infrastructure.persistence.entity.OrderPersistenceEntity;
 import com.algaworks.algashop.ordering.infrastructure.persistence.repository.OrderPersistenceEntityRepository;
 import jakarta.persistence.EntityManager;
-import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.ReflectionUtils;
 
-import java.lang.reflect.Field;
 import java.time.OffsetDateTime;
 import java.time.Year;
 import java.time.ZoneOffset;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
-@RequiredArgsConstructor
 @Transactional(readOnly = true)
-public class OrdersPersistenceProvider implements Orders {
+public class OrdersPersistenceProvider
+        extends AbstractPersistenceProvider<Order, OrderId, OrderPersistenceEntity, Long, OrderPersistenceEntityRepository>
+        implements Orders {
 
-    private final OrderPersistenceEntityRepository persistenceRepository;
     private final OrderPersistenceEntityAssembler assembler;
     private final OrderPersistenceEntityDisassembler disassembler;
-
-    private final EntityManager entityManager;
+    private final CustomerSalesSummaryProvider salesSummaryProvider;
+
+    public OrdersPersistenceProvider(OrderPersistenceEntityRepository persistenceRepository,
+                                     OrderPersistenceEntityAssembler assembler,
+                                     OrderPersistenceEntityDisassembler disassembler,
+                                     EntityManager entityManager,
+                                     AggregateMetadataRegistry metadataRegistry,
+                                     CustomerSalesSummaryProvider salesSummaryProvider) {
+        super(OrderPersistenceEntity.class, persistenceRepository, entityManager, metadataRegistry.of(Order.class));
+        this.assembler = assembler;
+        this.disassembler = disassembler;
+        this.salesSummaryProvider = salesSummaryProvider;
+    }
 
     @Override
-    public Optional<Order> ofId(OrderId orderId) {
-        Optional<OrderPersistenceEntity> possibleEntity = persistenceRepository.findById(
-                orderId.value().toLong());
-        return possibleEntity.map(disassembler::toDomainEntity);
+    @Transactional(readOnly = false)
+    public void add(Order aggregateRoot) {
+        verifyItemsLoaded(aggregateRoot);
+        Optional<CustomerSalesSummaryProvider.SalesDelta> delta = salesSummaryProvider.deltaOf(aggregateRoot);
+        super.add(aggregateRoot);
+        delta.ifPresent(d -> salesSummaryProvider.apply(List.of(d)));
     }
 
     @Override
-    public boolean exists(OrderId orderId) {
-        return persistenceRepository.existsById(orderId.value().toLong());
+    @Transactional(readOnly = false)
+    public void addAll(Collection<Order> aggregateRoots) {
+        aggregateRoots.forEach(this::verifyItemsLoaded);
+        List<CustomerSalesSummaryProvider.SalesDelta> deltas = aggregateRoots.stream()
+                .map(salesSummaryProvider::deltaOf)
+                .flatMap(Optional::stream)
+                .toList();
+        super.addAll(aggregateRoots);
+        if (!deltas.isEmpty()) {
+            salesSummaryProvider.apply(deltas);
+        }
     }
 
     @Override
-    public long count() {
-        return persistenceRepository.count();
+    public Optional<Order> ofId(OrderId orderId, OrderFetchPlan fetchPlan) {
+        Long id = toPersistenceId(orderId);
+        Optional<OrderPersistenceEntity> persistenceEntity = switch (fetchPlan) {
+            case HEADER_ONLY -> persistenceRepository.findById(id);
+            case WITH_ITEMS -> persistenceRepository.findWithItemsById(id);
+            case FULL -> persistenceRepository.findFullById(id);
+        };
+
+        return persistenceEntity.map(entity -> toDomainEntity(entity, fetchPlan));
     }
 
-
     @Override
-    @Transactional(readOnly = false)
-    public void add(Order aggregateRoot) {
-        long orderId = aggregateRoot.id().value().toLong();
+    public List<Order> placedByCustomerInYear(CustomerId customerId, Year year) {
+        return placedByCustomerInYear(customerId, year, OrderFetchPlan.WITH_ITEMS);
+    }
 
-        persistenceRepository.findById(orderId)
-                .ifPresentOrElse(
-                        (persistenceEntity) -> update(aggregateRoot, persistenceEntity),
-                        ()-> insert(aggregateRoot)
-                );
+    @Override
+    public List<Order> placedByCustomerInYear(CustomerId customerId, Year year, OrderFetchPlan fetchPlan) {
+        OffsetDateTime start = startOf(year);
+        OffsetDateTime end = startOf(year.plusYears(1));
+        List<OrderPersistenceEntity> entities = switch (fetchPlan) {
+            case HEADER_ONLY -> persistenceRepository.placedByCustomerBetween(customerId.value(), start, end);
+            case WITH_ITEMS -> persistenceRepository.placedWithItemsByCustomerBetween(customerId.value(), start, end);
+            case FULL -> persistenceRepository.placedFullByCustomerBetween(customerId.value(), start, end);
+        };
+
+        return entities.stream().map(entity -> toDomainEntity(entity, fetchPlan)).collect(Collectors.toList());
     }
 
     @Override
-    public List<Order> placedByCustomerInYear(CustomerId customerId, Year year) {
-        List<OrderPersistenceEntity> entities = persistenceRepository.placedByCustomerInYear(
-                customerId.value(),
-                year.getValue()
-        );
+    public CursorPage<Order, OrderId> ofCustomer(CustomerId customerId, OrderId after, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive, but was " + limit);
+        }
+
+        List<OrderPersistenceEntity> entities = after == null
+                ? persistenceRepository.ofCustomerFirst(customerId.value(), Limit.of(limit + 1))
+                : persistenceRepository.ofCustomerAfter(customerId.value(), toPersistenceId(after), Limit.of(limit + 1));
+
+        List<Order> content = entities.stream()
+                .limit(limit)
+                .map(disassembler::toDomainEntity)
+                .toList();
+        OrderId nextCursor = entities.size() > limit ? content.getLast().id() : null;
+
+        return new CursorPage<>(content, nextCursor);
+    }
 
-        return entities.stream().map(disassembler::toDomainEntity).collect(Collectors.toList());
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.MANDATORY)
+    public Stream<Order> streamOfCustomer(CustomerId customerId) {
+        return persistenceRepository.streamOfCustomer(customerId.value())
+                .map(persistenceEntity -> {
+                    Order order = disassembler.toDomainEntity(persistenceEntity);
+                    entityManager.detach(persistenceEntity);
+                    return order;
+                });
     }
 
     @Override
     public long salesQuantityByCustomerInYear(CustomerId customerId, Year year) {
-        return this.persistenceRepository.salesQuantityByCustomerInYear(customerId.value(), year.getValue());
+        return salesSummaryProvider.salesQuantity(customerId, year);
     }
 
     @Override
     public Money totalSoldForCustomer(CustomerId customerId) {
-        return new Money(this.persistenceRepository.totalSoldForCustomer(customerId.value()));
+        return salesSummaryProvider.totalSold(customerId);
+    }
+
+    @Override
+    public long count(OrderStatus status) {
+        return countedInMemory(status.name())
+                .orElseGet(() -> persistenceRepository.countByStatus(status.name()));
+    }
+
+    /*
+     * A header-only order carries an empty item set, so only its item changes could touch rows it never read.
+     * Header changes are merged field by field and leave the stored items alone, except under PRE_READ, where a
+     * single save merges the whole aggregate and would drop every item.
+     */
+    private void verifyItemsLoaded(Order order) {
+        if (!order.itemsLoaded()
+                && (order.changes().hasItemChanges() || writeMode() == AggregateWriteMode.PRE_READ)) {
+            throw new IllegalArgumentException("Order " + order.id() + " was loaded with the "
+                    + OrderFetchPlan.HEADER_ONLY + " fetch plan and its items cannot be saved");
+        }
+    }
+
+    private Order toDomainEntity(OrderPersistenceEntity persistenceEntity, OrderFetchPlan fetchPlan) {
+        if (fetchPlan == OrderFetchPlan.HEADER_ONLY) {
+            return disassembler.toHeaderDomainEntity(persistenceEntity);
+        }
+        return disassembler.toDomainEntity(persistenceEntity);
     }
 
-    private void update(Order aggregateRoot, OrderPersistenceEntity persistenceEntity) {
-        persistenceEntity = assembler.merge(persistenceEntity, aggregateRoot);
-        entityManager.detach(persistenceEntity);
-        persistenceEntity = persistenceRepository.saveAndFlush(persistenceEntity);
-        updateVersion(aggregateRoot, persistenceEntity);
+    private OffsetDateTime startOf(Year year) {
+        return year.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
     }
 
-    private void insert(Order aggregateRoot) {
-        OrderPersistenceEntity persistenceEntity = assembler.fromDomain(aggregateRoot);
-        persistenceRepository.saveAndFlush(persistenceEntity);
-        updateVersion(aggregateRoot, persistenceEntity);
+    @Override
+    protected List<OrderPersistenceEntity> findAllHydratedById(Collection<Long> ids) {
+        return persistenceRepository.findWithItemsByIdIn(ids);
     }
 
-    @SneakyThrows
-    private void updateVersion(Order aggregateRoot, OrderPersistenceEntity persistenceEntity) {
-        Field version = aggregateRoot.getClass().getDeclaredField("version");
-        version.setAccessible(true);
-        ReflectionUtils.setField(version, aggregateRoot, persistenceEntity.getVersion());
-        version.setAccessible(false);
+    @Override
+    protected String countBucket(OrderPersistenceEntity persistenceEntity) {
+        return persistenceEntity.getStatus();
+    }
+
+    @Override
+    protected Map<String, Long> countByBucket() {
+        return persistenceRepository.countGroupedByStatus().stream()
+                .collect(Collectors.toMap(
+                        OrderPersistenceEntityRepository.StatusCount::getStatus,
+                        OrderPersistenceEntityRepository.StatusCount::getTotal));
+    }
+
+    @Override
+    protected Long toPersistenceId(OrderId orderId) {
+        return orderId.value().toLong();
+    }
+
+    @Override
+    protected Long entityId(OrderPersistenceEntity persistenceEntity) {
+        return persistenceEntity.getId();
+    }
+
+    @Override
+    protected Long entityVersion(OrderPersistenceEntity persistenceEntity) {
+        return persistenceEntity.getVersion();
+    }
+
+    @Override
+    protected OrderPersistenceEntity toPersistenceEntity(Order aggregateRoot) {
+        return assembler.fromDomain(aggregateRoot);
+    }
+
+    @Override
+    protected OrderPersistenceEntity merge(OrderPersistenceEntity persistenceEntity, Order aggregateRoot) {
+        return assembler.merge(persistenceEntity, aggregateRoot);
+    }
+
+    @Override
+    protected OrderPersistenceEntity mergeChanges(OrderPersistenceEntity persistenceEntity, Order aggregateRoot) {
+        return assembler.mergeChanges(persistenceEntity, aggregateRoot);
+    }
+
+    @Override
+    protected Order toDomainEntity(OrderPersistenceEntity persistenceEntity) {
+        return disassembler.toDomainEntity(persistenceEntity);
     }
 
-}
\ No newline at end of file
+}
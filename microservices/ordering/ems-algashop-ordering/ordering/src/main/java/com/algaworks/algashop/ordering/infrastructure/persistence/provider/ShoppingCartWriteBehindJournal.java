@@ -0,0 +1,288 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCart;
+import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCartItem;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Money;
+import com.algaworks.algashop.ordering.domain.model.valueobject.ProductName;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Quantity;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.ProductId;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.ShoppingCartId;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.ShoppingCartItemId;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+class ShoppingCartWriteBehindJournal implements Closeable {
+
+    enum EntryType { SAVED, FLUSHED, REMOVED, DEAD_LETTERED }
+
+    record Entry(EntryType type, UUID id, Long version, UUID customerId,
+                 BigDecimal totalAmount, Integer totalItems, OffsetDateTime createdAt,
+                 List<Item> items, Set<ShoppingCart.Field> dirtyFields,
+                 Set<UUID> addedItems, Set<UUID> changedItems, Set<UUID> removedItems) {
+
+        Entry withVersion(Long version) {
+            return new Entry(type, id, version, customerId, totalAmount, totalItems, createdAt,
+                    items, dirtyFields, addedItems, changedItems, removedItems);
+        }
+    }
+
+    record Item(UUID id, UUID productId, String name, BigDecimal price,
+                Integer quantity, Boolean available, BigDecimal totalAmount) {
+    }
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private final boolean fsync;
+    private final int compactAfter;
+    private final Map<UUID, Entry> live = new LinkedHashMap<>();
+    private FileChannel channel;
+    private long appended;
+
+    ShoppingCartWriteBehindJournal(Path path, ObjectMapper objectMapper, boolean fsync, int compactAfter) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+        this.compactAfter = compactAfter;
+    }
+
+    synchronized Map<ShoppingCartId, Entry> replay() {
+        live.clear();
+        appended = 0;
+        if (!Files.exists(path)) {
+            return Map.of();
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Entry entry;
+                try {
+                    entry = objectMapper.readValue(line, Entry.class);
+                } catch (IOException e) {
+                    break;
+                }
+                appended++;
+                if (entry.type() == EntryType.SAVED) {
+                    live.put(entry.id(), entry);
+                } else {
+                    live.remove(entry.id());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        compact();
+
+        Map<ShoppingCartId, Entry> entries = new LinkedHashMap<>();
+        live.forEach((id, entry) -> entries.put(new ShoppingCartId(id), entry));
+        return entries;
+    }
+
+    synchronized void saved(Entry entry) {
+        write(entry);
+        live.put(entry.id(), entry);
+        compactIfNeeded();
+    }
+
+    synchronized void flushed(ShoppingCartId shoppingCartId) {
+        ended(EntryType.FLUSHED, shoppingCartId);
+    }
+
+    synchronized void removed(ShoppingCartId shoppingCartId) {
+        ended(EntryType.REMOVED, shoppingCartId);
+    }
+
+    synchronized void deadLettered(Entry entry) {
+        Path deadLetters = path.resolveSibling(path.getFileName() + ".dead");
+        try {
+            Files.writeString(deadLetters, objectMapper.writeValueAsString(entry) + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ended(EntryType.DEAD_LETTERED, new ShoppingCartId(entry.id()));
+    }
+
+    synchronized int liveCount() {
+        return live.size();
+    }
+
+    static Entry entryOf(ShoppingCart shoppingCart) {
+        return toEntry(shoppingCart);
+    }
+
+    static ShoppingCart shoppingCartOf(Entry entry) {
+        return toShoppingCart(entry);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void ended(EntryType type, ShoppingCartId shoppingCartId) {
+        if (live.remove(shoppingCartId.value()) == null) {
+            return;
+        }
+        write(marker(type, shoppingCartId));
+        compactIfNeeded();
+    }
+
+    /*
+     * Entries and markers are only ever appended, so under steady traffic the file keeps growing even though the
+     * buffer stays small. Once the appended lines outnumber both compactAfter and twice the live entries, the
+     * live entries are written to a new file that atomically replaces the journal.
+     */
+    private void compactIfNeeded() {
+        if (live.isEmpty() || appended >= Math.max(compactAfter, 2L * live.size())) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        try {
+            if (live.isEmpty()) {
+                channel().truncate(0);
+                appended = 0;
+                return;
+            }
+
+            Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+            try (FileChannel compactedChannel = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Entry entry : live.values()) {
+                    write(compactedChannel, entry);
+                }
+                compactedChannel.force(false);
+            }
+            close();
+            Files.move(compacted, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            appended = live.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(Entry entry) {
+        try {
+            FileChannel fileChannel = channel();
+            write(fileChannel, entry);
+            if (fsync) {
+                fileChannel.force(false);
+            }
+            appended++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(FileChannel fileChannel, Entry entry) throws IOException {
+        byte[] line = (objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer);
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    private Entry marker(EntryType type, ShoppingCartId shoppingCartId) {
+        return new Entry(type, shoppingCartId.value(), null, null, null, null, null,
+                List.of(), Set.of(), Set.of(), Set.of(), Set.of());
+    }
+
+    private static Entry toEntry(ShoppingCart shoppingCart) {
+        List<Item> items = shoppingCart.items().stream()
+                .map(i -> new Item(i.id().value(), i.productId().value(), i.name().value(), i.price().value(),
+                        i.quantity().value(), i.isAvailable(), i.totalAmount().value()))
+                .toList();
+
+        return new Entry(EntryType.SAVED,
+                shoppingCart.id().value(),
+                shoppingCart.version(),
+                shoppingCart.customerId().value(),
+                shoppingCart.totalAmount().value(),
+                shoppingCart.totalItems().value(),
+                shoppingCart.createdAt(),
+                items,
+                Set.copyOf(shoppingCart.changes().dirtyFields()),
+                toUuids(shoppingCart.changes().addedItems()),
+                toUuids(shoppingCart.changes().changedItems()),
+                toUuids(shoppingCart.changes().removedItems()));
+    }
+
+    private static ShoppingCart toShoppingCart(Entry entry) {
+        ShoppingCartId shoppingCartId = new ShoppingCartId(entry.id());
+        Set<ShoppingCartItem> items = entry.items().stream()
+                .map(i -> ShoppingCartItem.existing()
+                        .id(new ShoppingCartItemId(i.id()))
+                        .shoppingCartId(shoppingCartId)
+                        .productId(new ProductId(i.productId()))
+                        .productName(new ProductName(i.name()))
+                        .price(new Money(i.price()))
+                        .quantity(new Quantity(i.quantity()))
+                        .available(i.available())
+                        .totalAmount(new Money(i.totalAmount()))
+                        .build())
+                .collect(Collectors.toCollection(HashSet::new));
+
+        ShoppingCart shoppingCart = ShoppingCart.existing()
+                .id(shoppingCartId)
+                .version(entry.version())
+                .customerId(new CustomerId(entry.customerId()))
+                .totalAmount(new Money(entry.totalAmount()))
+                .totalItems(new Quantity(entry.totalItems()))
+                .createdAt(entry.createdAt())
+                .items(items)
+                .build();
+
+        shoppingCart.changes().restore(
+                entry.dirtyFields(),
+                toItemIds(entry.addedItems()),
+                toItemIds(entry.changedItems()),
+                toItemIds(entry.removedItems()));
+
+        return shoppingCart;
+    }
+
+    private static Set<UUID> toUuids(Set<ShoppingCartItemId> itemIds) {
+        return itemIds.stream().map(ShoppingCartItemId::value).collect(Collectors.toSet());
+    }
+
+    private static Set<ShoppingCartItemId> toItemIds(Set<UUID> ids) {
+        return ids.stream().map(ShoppingCartItemId::new).collect(Collectors.toSet());
+    }
+
+}
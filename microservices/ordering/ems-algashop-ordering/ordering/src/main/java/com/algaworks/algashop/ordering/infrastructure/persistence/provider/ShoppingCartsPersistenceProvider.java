@@ -2,6 +2,7 @@ package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
 
 import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCart;
 import com.algaworks.algashop.ordering.domain.model.repository.ShoppingCarts;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Product;
 import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
 import com.algaworks.algashop.ordering.domain.model.valueobject.id.ShoppingCartId;
 import com.algaworks.algashop.ordering.infrastructure.persistence.assembler.ShoppingCartPersistenceEntityAssembler;
@@ -9,91 +10,198 @@ import com.algaworks.algashop.ordering.infrastructure.persistence.disassembler.S
 import com.algaworks.algashop.ordering.infrastructure.persistence.entity.ShoppingCartPersistenceEntity;
 import com.algaworks.algashop.ordering.infrastructure.persistence.repository.ShoppingCartPersistenceEntityRepository;
 import jakarta.persistence.EntityManager;
-import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.ReflectionUtils;
 
-import java.lang.reflect.Field;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Component
-@RequiredArgsConstructor
 @Transactional(readOnly = true)
-public class ShoppingCartsPersistenceProvider implements ShoppingCarts {
+public class ShoppingCartsPersistenceProvider
+        extends AbstractPersistenceProvider<ShoppingCart, ShoppingCartId, ShoppingCartPersistenceEntity, UUID, ShoppingCartPersistenceEntityRepository>
+        implements ShoppingCarts {
 
-    private final ShoppingCartPersistenceEntityRepository persistenceRepository;
     private final ShoppingCartPersistenceEntityAssembler assembler;
     private final ShoppingCartPersistenceEntityDisassembler disassembler;
-
-    private final EntityManager entityManager;
+    private final HotShoppingCartStore hotStore;
+    private final SingleFlight<UUID, Optional<ShoppingCartPersistenceEntity>> loadsByCustomer = singleFlight();
+
+    public ShoppingCartsPersistenceProvider(ShoppingCartPersistenceEntityRepository persistenceRepository,
+                                            ShoppingCartPersistenceEntityAssembler assembler,
+                                            ShoppingCartPersistenceEntityDisassembler disassembler,
+                                            EntityManager entityManager,
+                                            AggregateMetadataRegistry metadataRegistry,
+                                            ObjectProvider<HotShoppingCartStore> hotStore) {
+        super(ShoppingCartPersistenceEntity.class, persistenceRepository, entityManager, metadataRegistry.of(ShoppingCart.class));
+        this.assembler = assembler;
+        this.disassembler = disassembler;
+        this.hotStore = hotStore.getIfAvailable();
+    }
 
     @Override
     public Optional<ShoppingCart> ofId(ShoppingCartId shoppingCartId) {
-        return persistenceRepository.findById(shoppingCartId.value())
-                .map(disassembler::toDomainEntity);
+        if (hotStore == null) {
+            return super.ofId(shoppingCartId);
+        }
+        return hotStore.ofId(shoppingCartId)
+                .or(() -> super.ofId(shoppingCartId).map(this::keepHot));
     }
 
     @Override
-    public boolean exists(ShoppingCartId shoppingCartId) {
-        return persistenceRepository.existsById(shoppingCartId.value());
+    @Transactional(readOnly = false)
+    public void add(ShoppingCart aggregateRoot) {
+        if (hotStore == null) {
+            super.add(aggregateRoot);
+            return;
+        }
+        hotStore.evictAfterCommit(aggregateRoot.id());
+        super.add(aggregateRoot);
+        hotStore.putAfterCommit(aggregateRoot);
     }
 
     @Override
     @Transactional(readOnly = false)
-    public void add(ShoppingCart aggregateRoot) {
-        UUID ShoppingCartId = aggregateRoot.id().value();
+    public void addAll(Collection<ShoppingCart> aggregateRoots) {
+        if (hotStore == null) {
+            super.addAll(aggregateRoots);
+            return;
+        }
+        aggregateRoots.forEach(shoppingCart -> hotStore.evictAfterCommit(shoppingCart.id()));
+        super.addAll(aggregateRoots);
+        aggregateRoots.forEach(hotStore::putAfterCommit);
+    }
+
+    @Override
+    @Transactional(readOnly = false)
+    public void remove(ShoppingCart shoppingCart) {
+        evictHot(shoppingCart.id());
+        deleteIfExists(shoppingCart.id().value());
+    }
+
+    @Override
+    @Transactional(readOnly = false)
+    public void remove(ShoppingCartId shoppingCartId) {
+        evictHot(shoppingCartId);
+        deleteIfExists(shoppingCartId.value());
+    }
 
-        persistenceRepository.findById(ShoppingCartId)
-                .ifPresentOrElse(
-                        (persistenceEntity) -> update(aggregateRoot, persistenceEntity),
-                        ()-> insert(aggregateRoot)
-                );
+    @Override
+    public Optional<ShoppingCart> ofCustomer(CustomerId customerId) {
+        if (hotStore != null) {
+            Optional<ShoppingCart> hotCart = hotStore.ofCustomer(customerId);
+            if (hotCart.isPresent()) {
+                return hotCart;
+            }
+        }
+        return coalesced(loadsByCustomer, customerId.value(),
+                () -> persistenceRepository.findWithItemsByCustomerId(customerId.value()))
+                .map(disassembler::toDomainEntity)
+                .map(this::keepHot);
     }
 
     @Override
-    public long count() {
-        return persistenceRepository.count();
+    @Transactional(readOnly = false)
+    public int refreshItems(Product product) {
+        UUID productId = product.id().value();
+        String name = product.name().value();
+        OffsetDateTime now = OffsetDateTime.now();
+        List<ShoppingCartPersistenceEntity> managedCarts = managedCarts();
+        Set<UUID> staleCartIds = managedCarts.isEmpty() ? Set.of()
+                : Set.copyOf(persistenceRepository.idsOfCartsToRefresh(
+                        productId, name, product.price().value(), product.inStock()));
+        int refreshedCarts = persistenceRepository.refreshTotalsOfCartsWithProduct(
+                productId, name, product.price().value(), product.inStock(), now);
+        persistenceRepository.refreshItemsOfProduct(
+                productId, name, product.price().value(), product.inStock(), now);
+        for (ShoppingCartPersistenceEntity managedCart : managedCarts) {
+            if (staleCartIds.contains(managedCart.getId())) {
+                entityManager.refresh(managedCart);
+            }
+        }
+        singleFlightsWritten();
+        if (hotStore != null) {
+            hotStore.evictHolding(product.id());
+        }
+        return refreshedCarts;
     }
 
-    private void update(ShoppingCart aggregateRoot, ShoppingCartPersistenceEntity persistenceEntity) {
-        persistenceEntity = assembler.merge(persistenceEntity, aggregateRoot);
-        entityManager.detach(persistenceEntity);
-        persistenceEntity = persistenceRepository.saveAndFlush(persistenceEntity);
-        updateVersion(aggregateRoot, persistenceEntity);
+    /*
+     * The bulk updates bypass the persistence context, so carts the caller already loaded would keep their old
+     * totals, items and version. Only those carts are refreshed, cascading to their items; everything else the
+     * surrounding transaction holds stays managed, unlike clearing the whole context.
+     */
+    private List<ShoppingCartPersistenceEntity> managedCarts() {
+        List<ShoppingCartPersistenceEntity> managedCarts = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> managed : entityManager.unwrap(SessionImplementor.class)
+                .getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (managed.getKey() instanceof ShoppingCartPersistenceEntity shoppingCart) {
+                managedCarts.add(shoppingCart);
+            }
+        }
+        return managedCarts;
     }
 
-    private void insert(ShoppingCart aggregateRoot) {
-        ShoppingCartPersistenceEntity persistenceEntity = assembler.fromDomain(aggregateRoot);
-        persistenceRepository.saveAndFlush(persistenceEntity);
-        updateVersion(aggregateRoot, persistenceEntity);
+    private ShoppingCart keepHot(ShoppingCart shoppingCart) {
+        if (hotStore != null) {
+            hotStore.putAfterCommit(shoppingCart);
+        }
+        return shoppingCart;
     }
 
-    @SneakyThrows
-    private void updateVersion(ShoppingCart aggregateRoot, ShoppingCartPersistenceEntity persistenceEntity) {
-        Field version = aggregateRoot.getClass().getDeclaredField("version");
-        version.setAccessible(true);
-        ReflectionUtils.setField(version, aggregateRoot, persistenceEntity.getVersion());
-        version.setAccessible(false);
+    private void evictHot(ShoppingCartId shoppingCartId) {
+        if (hotStore != null) {
+            hotStore.evictAfterCommit(shoppingCartId);
+        }
     }
 
     @Override
-    @Transactional(readOnly = false)
-    public void remove(ShoppingCart shoppingCart) {
-        this.persistenceRepository.deleteById(shoppingCart.id().value());
+    protected List<ShoppingCartPersistenceEntity> findAllHydratedById(Collection<UUID> ids) {
+        return persistenceRepository.findWithItemsByIdIn(ids);
     }
 
     @Override
-    @Transactional(readOnly = false)
-    public void remove(ShoppingCartId shoppingCartId) {
-        this.persistenceRepository.deleteById(shoppingCartId.value());
+    protected UUID toPersistenceId(ShoppingCartId shoppingCartId) {
+        return shoppingCartId.value();
     }
 
     @Override
-    public Optional<ShoppingCart> ofCustomer(CustomerId customerId) {
-        return persistenceRepository.findByCustomer_Id(customerId.value())
-                .map(disassembler::toDomainEntity);
+    protected UUID entityId(ShoppingCartPersistenceEntity persistenceEntity) {
+        return persistenceEntity.getId();
+    }
+
+    @Override
+    protected Long entityVersion(ShoppingCartPersistenceEntity persistenceEntity) {
+        return persistenceEntity.getVersion();
+    }
+
+    @Override
+    protected ShoppingCartPersistenceEntity toPersistenceEntity(ShoppingCart aggregateRoot) {
+        return assembler.fromDomain(aggregateRoot);
     }
-}
\ No newline at end of file
+
+    @Override
+    protected ShoppingCartPersistenceEntity merge(ShoppingCartPersistenceEntity persistenceEntity, ShoppingCart aggregateRoot) {
+        return assembler.merge(persistenceEntity, aggregateRoot);
+    }
+
+    @Override
+    protected ShoppingCartPersistenceEntity mergeChanges(ShoppingCartPersistenceEntity persistenceEntity, ShoppingCart aggregateRoot) {
+        return assembler.mergeChanges(persistenceEntity, aggregateRoot);
+    }
+
+    @Override
+    protected ShoppingCart toDomainEntity(ShoppingCartPersistenceEntity persistenceEntity) {
+        return disassembler.toDomainEntity(persistenceEntity);
+    }
+
+}
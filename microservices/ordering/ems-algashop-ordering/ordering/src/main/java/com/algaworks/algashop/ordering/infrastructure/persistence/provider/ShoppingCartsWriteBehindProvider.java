@@ -0,0 +1,327 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCart;
+import com.algaworks.algashop.ordering.domain.model.repository.ShoppingCarts;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Product;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.ShoppingCartId;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(name = "algashop.persistence.shopping-cart.write-behind.enabled", havingValue = "true")
+public class ShoppingCartsWriteBehindProvider implements ShoppingCarts {
+
+    private final ShoppingCartsPersistenceProvider delegate;
+    private final ShoppingCartWriteBehindJournal journal;
+    private final Duration flushInterval;
+    private final int maxAttempts;
+
+    private final ConcurrentMap<ShoppingCartId, PendingCart> pending = new ConcurrentHashMap<>();
+    private final ConcurrentMap<CustomerId, ShoppingCartId> pendingByCustomer = new ConcurrentHashMap<>();
+    private final Object bufferLock = new Object();
+    private final Object flushLock = new Object();
+    private ScheduledExecutorService scheduler;
+
+    /*
+     * Reads are served from the buffered entry, which keeps its version until it is flushed, so two writers of
+     * the same cart would both pass the version check and the later one would silently replace the earlier one.
+     * Cart writes must therefore be serialized by the per-cart single writer, and the buffer refuses to start
+     * without it.
+     */
+    public ShoppingCartsWriteBehindProvider(
+            ShoppingCartsPersistenceProvider delegate,
+            ObjectMapper objectMapper,
+            @Value("${algashop.persistence.shopping-cart.write-behind.flush-interval:200ms}") Duration flushInterval,
+            @Value("${algashop.persistence.shopping-cart.write-behind.journal:data/shopping-cart-write-behind.journal}") String journal,
+            @Value("${algashop.persistence.shopping-cart.write-behind.fsync:true}") boolean fsync,
+            @Value("${algashop.persistence.shopping-cart.write-behind.compact-after:10000}") int compactAfter,
+            @Value("${algashop.persistence.shopping-cart.write-behind.max-attempts:5}") int maxAttempts,
+            @Value("${algashop.shopping-cart.single-writer.enabled:true}") boolean singleWriterEnabled) {
+        if (!singleWriterEnabled) {
+            throw new IllegalStateException("The shopping cart write-behind buffer requires the shopping cart single "
+                    + "writer, enable algashop.shopping-cart.single-writer.enabled or disable write-behind");
+        }
+        this.delegate = delegate;
+        this.flushInterval = flushInterval;
+        this.maxAttempts = maxAttempts;
+        this.journal = new ShoppingCartWriteBehindJournal(Path.of(journal), objectMapper, fsync, compactAfter);
+    }
+
+    @PostConstruct
+    public void start() {
+        journal.replay().forEach((shoppingCartId, entry) -> {
+            pending.put(shoppingCartId, new PendingCart(entry, 0));
+            pendingByCustomer.put(new CustomerId(entry.customerId()), shoppingCartId);
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("shopping-cart-write-behind").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::flushQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(flushInterval.toMillis() * 10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        journal.close();
+    }
+
+    @Override
+    public Optional<ShoppingCart> ofId(ShoppingCartId shoppingCartId) {
+        PendingCart pendingCart = pending.get(shoppingCartId);
+        if (pendingCart != null) {
+            return Optional.of(ShoppingCartWriteBehindJournal.shoppingCartOf(pendingCart.entry()));
+        }
+        return delegate.ofId(shoppingCartId);
+    }
+
+    @Override
+    public Map<ShoppingCartId, ShoppingCart> ofIds(Collection<ShoppingCartId> shoppingCartIds) {
+        Map<ShoppingCartId, ShoppingCart> shoppingCarts = new LinkedHashMap<>();
+        List<ShoppingCartId> notPending = new ArrayList<>();
+        for (ShoppingCartId shoppingCartId : shoppingCartIds) {
+            PendingCart pendingCart = pending.get(shoppingCartId);
+            if (pendingCart != null) {
+                shoppingCarts.put(shoppingCartId, ShoppingCartWriteBehindJournal.shoppingCartOf(pendingCart.entry()));
+            } else {
+                notPending.add(shoppingCartId);
+            }
+        }
+        shoppingCarts.putAll(delegate.ofIds(notPending));
+        return shoppingCarts;
+    }
+
+    @Override
+    public boolean exists(ShoppingCartId shoppingCartId) {
+        return pending.containsKey(shoppingCartId) || delegate.exists(shoppingCartId);
+    }
+
+    @Override
+    public void add(ShoppingCart aggregateRoot) {
+        if (aggregateRoot.version() != null && !aggregateRoot.changes().hasChanges()) {
+            return;
+        }
+
+        ShoppingCartWriteBehindJournal.Entry entry = ShoppingCartWriteBehindJournal.entryOf(aggregateRoot);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            buffer(entry);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                buffer(entry);
+            }
+        });
+    }
+
+    @Override
+    public void addAll(Collection<ShoppingCart> aggregateRoots) {
+        for (ShoppingCart aggregateRoot : aggregateRoots) {
+            add(aggregateRoot);
+        }
+    }
+
+    @Override
+    public long count() {
+        long notYetInserted = pending.values().stream()
+                .filter(pendingCart -> pendingCart.entry().version() == null)
+                .count();
+        return delegate.count() + notYetInserted;
+    }
+
+    @Override
+    public void remove(ShoppingCart shoppingCart) {
+        remove(shoppingCart.id());
+    }
+
+    @Override
+    public void remove(ShoppingCartId shoppingCartId) {
+        synchronized (flushLock) {
+            synchronized (bufferLock) {
+                PendingCart pendingCart = pending.get(shoppingCartId);
+                if (pendingCart != null) {
+                    unbuffer(shoppingCartId, pendingCart);
+                }
+                journal.removed(shoppingCartId);
+            }
+            delegate.remove(shoppingCartId);
+        }
+    }
+
+    @Override
+    public Optional<ShoppingCart> ofCustomer(CustomerId customerId) {
+        ShoppingCartId shoppingCartId = pendingByCustomer.get(customerId);
+        if (shoppingCartId != null) {
+            PendingCart pendingCart = pending.get(shoppingCartId);
+            if (pendingCart != null) {
+                return Optional.of(ShoppingCartWriteBehindJournal.shoppingCartOf(pendingCart.entry()));
+            }
+        }
+        return delegate.ofCustomer(customerId);
+    }
+
+    @Override
+    public int refreshItems(Product product) {
+        synchronized (flushLock) {
+            flush();
+            return delegate.refreshItems(product);
+        }
+    }
+
+    public void flush(ShoppingCartId shoppingCartId) {
+        synchronized (flushLock) {
+            PendingCart pendingCart = pending.get(shoppingCartId);
+            if (pendingCart == null) {
+                return;
+            }
+            ShoppingCart shoppingCart = ShoppingCartWriteBehindJournal.shoppingCartOf(pendingCart.entry());
+            delegate.add(shoppingCart);
+            settle(shoppingCartId, pendingCart.entry(), shoppingCart.version());
+        }
+    }
+
+    public void flush() {
+        synchronized (flushLock) {
+            Map<ShoppingCartId, PendingCart> batch = new LinkedHashMap<>(pending);
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            Map<ShoppingCartId, ShoppingCart> shoppingCarts = new LinkedHashMap<>();
+            batch.forEach((shoppingCartId, pendingCart) -> shoppingCarts.put(shoppingCartId,
+                    ShoppingCartWriteBehindJournal.shoppingCartOf(pendingCart.entry())));
+
+            try {
+                delegate.addAll(List.copyOf(shoppingCarts.values()));
+                batch.forEach((shoppingCartId, pendingCart) ->
+                        settle(shoppingCartId, pendingCart.entry(), shoppingCarts.get(shoppingCartId).version()));
+            } catch (RuntimeException e) {
+                log.warn("Batched shopping cart flush failed, retrying one by one", e);
+                batch.forEach(this::flushIndividually);
+            }
+        }
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void buffer(ShoppingCartWriteBehindJournal.Entry entry) {
+        ShoppingCartId shoppingCartId = new ShoppingCartId(entry.id());
+        synchronized (bufferLock) {
+            journal.saved(entry);
+            pending.put(shoppingCartId, new PendingCart(entry, 0));
+            pendingByCustomer.put(new CustomerId(entry.customerId()), shoppingCartId);
+        }
+    }
+
+    private void flushIndividually(ShoppingCartId shoppingCartId, PendingCart pendingCart) {
+        ShoppingCart shoppingCart = ShoppingCartWriteBehindJournal.shoppingCartOf(pendingCart.entry());
+        try {
+            delegate.add(shoppingCart);
+            settle(shoppingCartId, pendingCart.entry(), shoppingCart.version());
+        } catch (ObjectOptimisticLockingFailureException e) {
+            log.error("Shopping cart {} was changed outside the write-behind buffer, moving its committed state "
+                    + "to the dead letter file", shoppingCartId, e);
+            synchronized (bufferLock) {
+                if (pending.get(shoppingCartId) == pendingCart) {
+                    unbuffer(shoppingCartId, pendingCart);
+                    journal.deadLettered(pendingCart.entry());
+                }
+            }
+        } catch (RuntimeException e) {
+            failed(shoppingCartId, pendingCart, e);
+        }
+    }
+
+    /*
+     * A save that arrived while its cart was being written replaces the buffered entry. The single writer runs
+     * one writer per cart at a time, so that save was loaded from the entry being written: it carries the same
+     * version and every change just written, and the item merge is idempotent. It is therefore rebased onto the
+     * version the write produced instead of failing as stale on the next flush.
+     */
+    private void settle(ShoppingCartId shoppingCartId, ShoppingCartWriteBehindJournal.Entry written, Long persistedVersion) {
+        synchronized (bufferLock) {
+            PendingCart current = pending.get(shoppingCartId);
+            if (current == null) {
+                return;
+            }
+            if (current.entry() == written) {
+                unbuffer(shoppingCartId, current);
+                journal.flushed(shoppingCartId);
+                return;
+            }
+            if (Objects.equals(current.entry().version(), written.version())) {
+                ShoppingCartWriteBehindJournal.Entry rebased = current.entry().withVersion(persistedVersion);
+                journal.saved(rebased);
+                pending.put(shoppingCartId, new PendingCart(rebased, 0));
+            }
+        }
+    }
+
+    private void failed(ShoppingCartId shoppingCartId, PendingCart pendingCart, RuntimeException e) {
+        synchronized (bufferLock) {
+            if (pending.get(shoppingCartId) != pendingCart) {
+                return;
+            }
+            int attempts = pendingCart.attempts() + 1;
+            if (attempts < maxAttempts) {
+                log.error("Could not flush shopping cart {} (attempt {} of {}), keeping it buffered",
+                        shoppingCartId, attempts, maxAttempts, e);
+                pending.put(shoppingCartId, new PendingCart(pendingCart.entry(), attempts));
+                return;
+            }
+            log.error("Could not flush shopping cart {} after {} attempts, moving it to the dead letter file",
+                    shoppingCartId, attempts, e);
+            unbuffer(shoppingCartId, pendingCart);
+            journal.deadLettered(pendingCart.entry());
+        }
+    }
+
+    private void unbuffer(ShoppingCartId shoppingCartId, PendingCart pendingCart) {
+        pending.remove(shoppingCartId, pendingCart);
+        pendingByCustomer.remove(new CustomerId(pendingCart.entry().customerId()), shoppingCartId);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Shopping cart write-behind flush failed", e);
+        }
+    }
+
+    private record PendingCart(ShoppingCartWriteBehindJournal.Entry entry, int attempts) {
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong writes = new AtomicLong();
+
+    V execute(K key, Supplier<V> loader) {
+        Flight<V> flight = new Flight<>(writes.get(), new CompletableFuture<>());
+        while (true) {
+            Flight<V> leading = inFlight.putIfAbsent(key, flight);
+            if (leading == null) {
+                break;
+            }
+            if (leading.writesSeen() >= flight.writesSeen()) {
+                return await(leading.result());
+            }
+            if (inFlight.replace(key, leading, flight)) {
+                break;
+            }
+        }
+
+        try {
+            V value = loader.get();
+            flight.result().complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /*
+     * A load that started before a write committed may return the row as it was before that write. Callers that
+     * arrive after written() never join such a load and start a fresh one instead, so a writer reading its own
+     * aggregate back after commit always sees its write. Writes are not tracked per key: any write only costs
+     * the loads already in flight their chance to be shared.
+     */
+    void written() {
+        writes.incrementAndGet();
+    }
+
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private V await(CompletableFuture<V> leading) {
+        try {
+            return leading.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private record Flight<V>(long writesSeen, CompletableFuture<V> result) {
+    }
+
+}
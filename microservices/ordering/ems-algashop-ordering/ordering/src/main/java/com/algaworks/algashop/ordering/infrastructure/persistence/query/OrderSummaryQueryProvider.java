@@ -0,0 +1,55 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.query;
+
+import com.algaworks.algashop.ordering.application.OrderQueryService;
+import com.algaworks.algashop.ordering.application.OrderSummary;
+import com.algaworks.algashop.ordering.domain.model.repository.CursorPage;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.OrderId;
+import com.algaworks.algashop.ordering.infrastructure.persistence.repository.OrderPersistenceEntityRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class OrderSummaryQueryProvider implements OrderQueryService {
+
+    private final OrderPersistenceEntityRepository persistenceRepository;
+
+    @Override
+    public List<OrderSummary> placedByCustomerInYear(CustomerId customerId, Year year) {
+        return persistenceRepository.summariesPlacedByCustomerBetween(
+                customerId.value(),
+                startOf(year),
+                startOf(year.plusYears(1))
+        );
+    }
+
+    @Override
+    public CursorPage<OrderSummary, OrderId> ofCustomer(CustomerId customerId, OrderId after, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        Long afterId = after == null ? Long.MIN_VALUE : after.value().toLong();
+        List<OrderSummary> summaries = persistenceRepository.summariesOfCustomerAfter(
+                customerId.value(), afterId, Limit.of(limit + 1));
+
+        List<OrderSummary> content = summaries.size() > limit ? summaries.subList(0, limit) : summaries;
+        OrderId nextCursor = summaries.size() > limit ? new OrderId(content.getLast().id()) : null;
+
+        return new CursorPage<>(content, nextCursor);
+    }
+
+    private OffsetDateTime startOf(Year year) {
+        return year.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+    }
+
+}
@@ -1,12 +1,35 @@
 package com.algaworks.algashop.ordering.infrastructure.persistence.repository;
 
 import com.algaworks.algashop.ordering.infrastructure.persistence.entity.CustomerPersistenceEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface CustomerPersistenceEntityRepository extends JpaRepository<CustomerPersistenceEntity, UUID> {
-    Optional<CustomerPersistenceEntity> findByEmail(String email);
-    boolean existsByEmailAndIdNot(String email, UUID customerId);
+    Optional<CustomerPersistenceEntity> findByEmailNormalized(String emailNormalized);
+    boolean existsByEmailNormalizedAndIdNot(String emailNormalized, UUID customerId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT c.emailNormalized FROM CustomerPersistenceEntity c WHERE c.emailNormalized IS NOT NULL")
+    Stream<String> streamNormalizedEmails();
+
+    @Query("SELECT c.version FROM CustomerPersistenceEntity c WHERE c.id = :id")
+    Optional<Long> versionOf(@Param("id") UUID id);
+
+    @Modifying
+    @Query("""
+        UPDATE CustomerPersistenceEntity c
+        SET c.emailNormalized = LOWER(TRIM(c.email))
+        WHERE c.emailNormalized IS NULL
+        AND c.email IS NOT NULL
+    """)
+    int normalizeMissingEmails();
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.repository;
+
+import com.algaworks.algashop.ordering.infrastructure.persistence.entity.CustomerSalesSummaryPersistenceEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface CustomerSalesSummaryPersistenceEntityRepository
+        extends JpaRepository<CustomerSalesSummaryPersistenceEntity, CustomerSalesSummaryPersistenceEntity.Key> {
+
+    @Modifying
+    @Query("""
+        UPDATE CustomerSalesSummaryPersistenceEntity s
+        SET s.salesQuantity = s.salesQuantity + :quantity,
+            s.totalSold = s.totalSold + :amount
+        WHERE s.customerId = :customerId
+        AND s.salesYear = :salesYear
+    """)
+    int increment(
+            @Param("customerId") UUID customerId,
+            @Param("salesYear") int salesYear,
+            @Param("quantity") long quantity,
+            @Param("amount") BigDecimal amount
+    );
+
+    @Query("""
+        SELECT COALESCE(SUM(s.salesQuantity), 0)
+        FROM CustomerSalesSummaryPersistenceEntity s
+        WHERE s.customerId = :customerId
+        AND s.salesYear = :salesYear
+    """)
+    long salesQuantityOf(@Param("customerId") UUID customerId, @Param("salesYear") int salesYear);
+
+    @Query("""
+        SELECT COALESCE(SUM(s.totalSold), 0)
+        FROM CustomerSalesSummaryPersistenceEntity s
+        WHERE s.customerId = :customerId
+    """)
+    BigDecimal totalSoldOf(@Param("customerId") UUID customerId);
+
+    @Query("""
+        SELECT new com.algaworks.algashop.ordering.infrastructure.persistence.entity.CustomerSalesSummaryPersistenceEntity(
+            s.customerId, s.salesYear, s.salesQuantity, s.totalSold
+        )
+        FROM CustomerSalesSummaryPersistenceEntity s
+    """)
+    List<CustomerSalesSummaryPersistenceEntity> currentSummaries();
+
+    @Query("""
+        SELECT MIN(o.placedAt) AS firstPlacedAt, MAX(o.placedAt) AS lastPlacedAt
+        FROM OrderPersistenceEntity o
+        WHERE o.paidAt IS NOT NULL
+        AND o.canceledAt IS NULL
+    """)
+    SalesPeriod salesPeriod();
+
+    @Query("""
+        SELECT o.customer.id AS customerId, COUNT(o) AS salesQuantity, SUM(o.totalAmount) AS totalSold
+        FROM OrderPersistenceEntity o
+        WHERE o.paidAt IS NOT NULL
+        AND o.canceledAt IS NULL
+        AND o.placedAt >= :start
+        AND o.placedAt < :end
+        GROUP BY o.customer.id
+    """)
+    List<SalesTotals> salesPlacedBetween(@Param("start") OffsetDateTime start, @Param("end") OffsetDateTime end);
+
+    interface SalesPeriod {
+        OffsetDateTime getFirstPlacedAt();
+        OffsetDateTime getLastPlacedAt();
+    }
+
+    interface SalesTotals {
+        UUID getCustomerId();
+        long getSalesQuantity();
+        BigDecimal getTotalSold();
+    }
+}
@@ -1,47 +1,141 @@
 package com.algaworks.algashop.ordering.infrastructure.persistence.repository;
 
+import com.algaworks.algashop.ordering.application.OrderSummary;
 import com.algaworks.algashop.ordering.infrastructure.persistence.entity.OrderPersistenceEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
-import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface OrderPersistenceEntityRepository extends JpaRepository<OrderPersistenceEntity, Long> {
 
+    String PLACED_BY_CUSTOMER_BETWEEN = """
+        SELECT o
+        FROM OrderPersistenceEntity o
+        WHERE o.customer.id = :customerId
+        AND o.placedAt >= :start
+        AND o.placedAt < :end
+    """;
+
+    @EntityGraph(OrderPersistenceEntity.WITH_ITEMS_GRAPH)
+    Optional<OrderPersistenceEntity> findWithItemsById(Long id);
+
+    @EntityGraph(OrderPersistenceEntity.FULL_GRAPH)
+    Optional<OrderPersistenceEntity> findFullById(Long id);
+
+    @EntityGraph(OrderPersistenceEntity.WITH_ITEMS_GRAPH)
+    List<OrderPersistenceEntity> findWithItemsByIdIn(Collection<Long> ids);
+
+    @Query(PLACED_BY_CUSTOMER_BETWEEN)
+    List<OrderPersistenceEntity> placedByCustomerBetween(
+            @Param("customerId") UUID customerId,
+            @Param("start") OffsetDateTime start,
+            @Param("end") OffsetDateTime end
+    );
+
+    @EntityGraph(OrderPersistenceEntity.WITH_ITEMS_GRAPH)
+    @Query(PLACED_BY_CUSTOMER_BETWEEN)
+    List<OrderPersistenceEntity> placedWithItemsByCustomerBetween(
+            @Param("customerId") UUID customerId,
+            @Param("start") OffsetDateTime start,
+            @Param("end") OffsetDateTime end
+    );
+
+    @EntityGraph(OrderPersistenceEntity.FULL_GRAPH)
+    @Query(PLACED_BY_CUSTOMER_BETWEEN)
+    List<OrderPersistenceEntity> placedFullByCustomerBetween(
+            @Param("customerId") UUID customerId,
+            @Param("start") OffsetDateTime start,
+            @Param("end") OffsetDateTime end
+    );
+
+    @Query("""
+        SELECT o
+        FROM OrderPersistenceEntity o
+        WHERE o.customer.id = :customerId
+        ORDER BY o.id
+    """)
+    List<OrderPersistenceEntity> ofCustomerFirst(@Param("customerId") UUID customerId, Limit limit);
+
     @Query("""
         SELECT o
         FROM OrderPersistenceEntity o
         WHERE o.customer.id = :customerId
-        AND YEAR(o.placedAt) = :year
+        AND o.id > :after
+        ORDER BY o.id
     """)
-    List<OrderPersistenceEntity> placedByCustomerInYear(
+    List<OrderPersistenceEntity> ofCustomerAfter(
             @Param("customerId") UUID customerId,
-            @Param("year") Integer year
+            @Param("after") Long after,
+            Limit limit
     );
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT o
+        FROM OrderPersistenceEntity o
+        LEFT JOIN FETCH o.items
+        WHERE o.customer.id = :customerId
+        ORDER BY o.id
+    """)
+    Stream<OrderPersistenceEntity> streamOfCustomer(@Param("customerId") UUID customerId);
+
     @Query("""
-        SELECT COUNT(o)
+        SELECT new com.algaworks.algashop.ordering.application.OrderSummary(
+            o.id, o.status, o.totalAmount, o.totalItems, o.placedAt
+        )
         FROM OrderPersistenceEntity o
         WHERE o.customer.id = :customerId
-        AND YEAR(o.placedAt) = :year
-        AND o.paidAt IS NOT NULL
-        AND o.canceledAt IS NULL
+        AND o.placedAt >= :start
+        AND o.placedAt < :end
+        ORDER BY o.placedAt
     """)
-    long salesQuantityByCustomerInYear(
+    List<OrderSummary> summariesPlacedByCustomerBetween(
             @Param("customerId") UUID customerId,
-            @Param("year") int year
+            @Param("start") OffsetDateTime start,
+            @Param("end") OffsetDateTime end
     );
 
     @Query("""
-        SELECT COALESCE(SUM(o.totalAmount), 0)
+        SELECT new com.algaworks.algashop.ordering.application.OrderSummary(
+            o.id, o.status, o.totalAmount, o.totalItems, o.placedAt
+        )
         FROM OrderPersistenceEntity o
         WHERE o.customer.id = :customerId
-        AND o.canceledAt IS NULL
-        AND o.paidAt IS NOT NULL
+        AND o.id > :after
+        ORDER BY o.id
     """)
-    BigDecimal totalSoldForCustomer(@Param("customerId") UUID customerId);
-}
\ No newline at end of file
+    List<OrderSummary> summariesOfCustomerAfter(
+            @Param("customerId") UUID customerId,
+            @Param("after") Long after,
+            Limit limit
+    );
+
+    long countByStatus(String status);
+
+    @Query("""
+        SELECT o.status AS status, COUNT(o) AS total
+        FROM OrderPersistenceEntity o
+        GROUP BY o.status
+    """)
+    List<StatusCount> countGroupedByStatus();
+
+    interface StatusCount {
+        String getStatus();
+        long getTotal();
+    }
+}
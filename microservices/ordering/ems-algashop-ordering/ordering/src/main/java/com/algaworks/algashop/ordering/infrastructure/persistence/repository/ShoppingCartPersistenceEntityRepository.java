@@ -2,10 +2,90 @@ package com.algaworks.algashop.ordering.infrastructure.persistence.repository;
 
 import com.algaworks.algashop.ordering.infrastructure.persistence.entity.ShoppingCartPersistenceEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface ShoppingCartPersistenceEntityRepository extends JpaRepository<ShoppingCartPersistenceEntity, UUID> {
-    Optional<ShoppingCartPersistenceEntity> findByCustomer_Id(UUID value);
+    @Query("""
+        SELECT sc
+        FROM ShoppingCartPersistenceEntity sc
+        LEFT JOIN FETCH sc.items
+        WHERE sc.customer.id = :customerId
+    """)
+    Optional<ShoppingCartPersistenceEntity> findWithItemsByCustomerId(@Param("customerId") UUID customerId);
+
+    @Query("""
+        SELECT sc
+        FROM ShoppingCartPersistenceEntity sc
+        LEFT JOIN FETCH sc.items
+        WHERE sc.id IN :ids
+    """)
+    List<ShoppingCartPersistenceEntity> findWithItemsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query("""
+        SELECT DISTINCT i.shoppingCart.id
+        FROM ShoppingCartItemPersistenceEntity i
+        WHERE i.productId = :productId
+        AND (i.price <> :price OR i.available <> :available OR i.name <> :name)
+    """)
+    List<UUID> idsOfCartsToRefresh(
+            @Param("productId") UUID productId,
+            @Param("name") String name,
+            @Param("price") BigDecimal price,
+            @Param("available") boolean available
+    );
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE ShoppingCartPersistenceEntity sc
+        SET sc.totalAmount = (
+                SELECT SUM(CASE WHEN i.productId = :productId THEN :price * i.quantity ELSE i.totalAmount END)
+                FROM ShoppingCartItemPersistenceEntity i
+                WHERE i.shoppingCart = sc
+            ),
+            sc.version = sc.version + 1,
+            sc.lastModifiedAt = :now
+        WHERE EXISTS (
+            SELECT 1
+            FROM ShoppingCartItemPersistenceEntity i
+            WHERE i.shoppingCart = sc
+            AND i.productId = :productId
+            AND (i.price <> :price OR i.available <> :available OR i.name <> :name)
+        )
+    """)
+    int refreshTotalsOfCartsWithProduct(
+            @Param("productId") UUID productId,
+            @Param("name") String name,
+            @Param("price") BigDecimal price,
+            @Param("available") boolean available,
+            @Param("now") OffsetDateTime now
+    );
+
+    @Modifying
+    @Query("""
+        UPDATE ShoppingCartItemPersistenceEntity i
+        SET i.name = :name,
+            i.price = :price,
+            i.available = :available,
+            i.totalAmount = :price * i.quantity,
+            i.version = i.version + 1,
+            i.lastModifiedAt = :now
+        WHERE i.productId = :productId
+        AND (i.price <> :price OR i.available <> :available OR i.name <> :name)
+    """)
+    int refreshItemsOfProduct(
+            @Param("productId") UUID productId,
+            @Param("name") String name,
+            @Param("price") BigDecimal price,
+            @Param("available") boolean available,
+            @Param("now") OffsetDateTime now
+    );
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.algaworks.algashop.ordering.application;
+
+import com.algaworks.algashop.ordering.domain.model.entity.Order;
+import com.algaworks.algashop.ordering.domain.model.entity.OrderStatus;
+import com.algaworks.algashop.ordering.domain.model.entity.OrderTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.exception.AggregateNotFoundException;
+import com.algaworks.algashop.ordering.domain.model.repository.Orders;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.OrderId;
+import com.algaworks.algashop.ordering.infrastructure.persistence.entity.OrderPersistenceEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+@ExtendWith(MockitoExtension.class)
+class AggregateCommandExecutorTest {
+
+    @Mock
+    private Orders orders;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AggregateCommandExecutor executor;
+
+    @BeforeEach
+    public void setup() {
+        Mockito.when(transactionManager.getTransaction(Mockito.any())).thenReturn(new SimpleTransactionStatus());
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new AggregateCommandExecutor(transactionManager, meterRegistry, 3, Duration.ZERO, Duration.ZERO);
+    }
+
+    @Test
+    public void shouldReloadAndRetryAfterConflict() {
+        OrderId orderId = new OrderId();
+        Mockito.when(orders.ofId(orderId)).thenAnswer(a -> Optional.of(placedOrder()));
+        Mockito.doThrow(new ObjectOptimisticLockingFailureException(OrderPersistenceEntity.class, orderId))
+                .doNothing()
+                .when(orders).add(Mockito.any(Order.class));
+
+        executor.execute(orders, orderId, Order::markAsPaid);
+
+        Mockito.verify(orders, Mockito.times(2)).ofId(orderId);
+        assertThat(count("algashop.aggregate.command.conflicts")).isEqualTo(1);
+        assertThat(count("algashop.aggregate.command.retries")).isEqualTo(1);
+        assertThat(count("algashop.aggregate.command.executions")).isEqualTo(1);
+        assertThat(count("algashop.aggregate.command.give_ups")).isZero();
+    }
+
+    @Test
+    public void shouldGiveUpAfterMaxAttempts() {
+        OrderId orderId = new OrderId();
+        Mockito.when(orders.ofId(orderId)).thenAnswer(a -> Optional.of(placedOrder()));
+        Mockito.doThrow(new ObjectOptimisticLockingFailureException(OrderPersistenceEntity.class, orderId))
+                .when(orders).add(Mockito.any(Order.class));
+
+        assertThatExceptionOfType(ObjectOptimisticLockingFailureException.class)
+                .isThrownBy(() -> executor.execute(orders, orderId, Order::markAsPaid));
+
+        Mockito.verify(orders, Mockito.times(3)).ofId(orderId);
+        assertThat(count("algashop.aggregate.command.conflicts")).isEqualTo(3);
+        assertThat(count("algashop.aggregate.command.give_ups")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldFailWhenAggregateDoesNotExist() {
+        OrderId orderId = new OrderId();
+        Mockito.when(orders.ofId(orderId)).thenReturn(Optional.empty());
+
+        assertThatExceptionOfType(AggregateNotFoundException.class)
+                .isThrownBy(() -> executor.execute(orders, orderId, Order::markAsPaid));
+    }
+
+    private Order placedOrder() {
+        return OrderTestDataBuilder.anOrder().status(OrderStatus.PLACED).build();
+    }
+
+    private double count(String name) {
+        return meterRegistry.find(name).tag("aggregate", "Order").counters().stream()
+                .mapToDouble(c -> c.count())
+                .sum();
+    }
+
+}
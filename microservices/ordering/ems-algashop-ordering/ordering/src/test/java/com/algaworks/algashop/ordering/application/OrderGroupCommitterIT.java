@@ -0,0 +1,136 @@
+package com.algaworks.algashop.ordering.application;
+
+import com.algaworks.algashop.ordering.domain.model.entity.CustomerTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.entity.Order;
+import com.algaworks.algashop.ordering.domain.model.entity.OrderStatus;
+import com.algaworks.algashop.ordering.domain.model.entity.OrderTestDataBuilder;
+import com.algaworks.algashop.ordering.infrastructure.persistence.assembler.CustomerPersistenceEntityAssembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.assembler.OrderPersistenceEntityAssembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.config.SpringDataAuditingConfig;
+import com.algaworks.algashop.ordering.infrastructure.persistence.disassembler.CustomerPersistenceEntityDisassembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.disassembler.OrderPersistenceEntityDisassembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.provider.AggregateMetadataRegistry;
+import com.algaworks.algashop.ordering.infrastructure.persistence.provider.CustomerSalesSummaryProvider;
+import com.algaworks.algashop.ordering.infrastructure.persistence.provider.CustomersPersistenceProvider;
+import com.algaworks.algashop.ordering.infrastructure.persistence.provider.OrdersPersistenceProvider;
+import com.algaworks.algashop.ordering.infrastructure.persistence.repository.OrderPersistenceEntityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({
+        AggregateMetadataRegistry.class,
+        OrdersPersistenceProvider.class,
+        CustomerSalesSummaryProvider.class,
+        OrderPersistenceEntityAssembler.class,
+        OrderPersistenceEntityDisassembler.class,
+        CustomersPersistenceProvider.class,
+        CustomerPersistenceEntityAssembler.class,
+        CustomerPersistenceEntityDisassembler.class,
+        SpringDataAuditingConfig.class
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderGroupCommitterIT {
+
+    private final OrdersPersistenceProvider orders;
+    private final CustomersPersistenceProvider customers;
+    private final OrderPersistenceEntityRepository entityRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Autowired
+    public OrderGroupCommitterIT(OrdersPersistenceProvider orders,
+                                 CustomersPersistenceProvider customers,
+                                 OrderPersistenceEntityRepository entityRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.orders = orders;
+        this.customers = customers;
+        this.entityRepository = entityRepository;
+        this.transactionManager = transactionManager;
+    }
+
+    @BeforeEach
+    public void setup() {
+        if (!customers.exists(CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID)) {
+            customers.add(CustomerTestDataBuilder.existingCustomer().build());
+        }
+    }
+
+    @Test
+    public void shouldWriteEveryOrderAgainWhenTheGroupCommitFails() throws Exception {
+        Order order1 = placedOrder();
+        Order order2 = placedOrder();
+        order1.markAsPaid();
+        order2.markAsPaid();
+
+        OrderGroupCommitter groupCommitter = new OrderGroupCommitter(orders,
+                new FailingFirstCommitTransactionManager(transactionManager), Duration.ofMillis(500), 50, 50);
+        groupCommitter.start();
+        try {
+            CompletableFuture<Void> result1 = groupCommitter.commit(order1);
+            CompletableFuture<Void> result2 = groupCommitter.commit(order2);
+            CompletableFuture.allOf(result1, result2).get(5, TimeUnit.SECONDS);
+        } finally {
+            groupCommitter.stop();
+        }
+
+        assertThat(statusOf(order1)).isEqualTo(OrderStatus.PAID.name());
+        assertThat(statusOf(order2)).isEqualTo(OrderStatus.PAID.name());
+        assertThat(order1.changes().hasChanges()).isFalse();
+    }
+
+    private Order placedOrder() {
+        Order order = OrderTestDataBuilder.anOrder().status(OrderStatus.PLACED).build();
+        orders.add(order);
+        return order;
+    }
+
+    private String statusOf(Order order) {
+        return entityRepository.findById(order.id().value().toLong()).orElseThrow().getStatus();
+    }
+
+    private static final class FailingFirstCommitTransactionManager implements PlatformTransactionManager {
+
+        private final PlatformTransactionManager delegate;
+        private final AtomicBoolean failNextCommit = new AtomicBoolean(true);
+
+        private FailingFirstCommitTransactionManager(PlatformTransactionManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return delegate.getTransaction(definition);
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            if (failNextCommit.compareAndSet(true, false)) {
+                delegate.rollback(status);
+                throw new TransactionSystemException("Simulated commit failure");
+            }
+            delegate.commit(status);
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            delegate.rollback(status);
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.algaworks.algashop.ordering.application;
+
+import com.algaworks.algashop.ordering.domain.model.entity.Order;
+import com.algaworks.algashop.ordering.domain.model.entity.OrderStatus;
+import com.algaworks.algashop.ordering.domain.model.entity.OrderTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.repository.Orders;
+import com.algaworks.algashop.ordering.infrastructure.persistence.entity.OrderPersistenceEntity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(MockitoExtension.class)
+class OrderGroupCommitterTest {
+
+    @Mock
+    private Orders orders;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OrderGroupCommitter groupCommitter;
+
+    @BeforeEach
+    public void setup() {
+        Mockito.when(transactionManager.getTransaction(Mockito.any())).thenReturn(new SimpleTransactionStatus());
+        groupCommitter = new OrderGroupCommitter(orders, transactionManager, Duration.ofMillis(500), 50, 50);
+        groupCommitter.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        groupCommitter.stop();
+    }
+
+    @Test
+    public void shouldWriteConcurrentTransitionsInOneBatch() throws Exception {
+        Order order1 = paidOrder();
+        Order order2 = paidOrder();
+        Order order3 = paidOrder();
+
+        CompletableFuture<Void> result1 = groupCommitter.commit(order1);
+        CompletableFuture<Void> result2 = groupCommitter.commit(order2);
+        CompletableFuture<Void> result3 = groupCommitter.commit(order3);
+
+        CompletableFuture.allOf(result1, result2, result3).get(5, TimeUnit.SECONDS);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Order>> captor = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(orders).addAll(captor.capture());
+        assertThat(captor.getValue()).containsExactly(order1, order2, order3);
+        Mockito.verify(orders, Mockito.never()).add(Mockito.any());
+    }
+
+    @Test
+    public void shouldReportConflictOnlyToItsCaller() throws Exception {
+        Order order1 = paidOrder();
+        Order conflicting = paidOrder();
+        ObjectOptimisticLockingFailureException conflict =
+                new ObjectOptimisticLockingFailureException(OrderPersistenceEntity.class, conflicting.id());
+        Mockito.doThrow(conflict).when(orders).addAll(Mockito.any());
+        Mockito.doThrow(conflict).when(orders).add(conflicting);
+
+        CompletableFuture<Void> result1 = groupCommitter.commit(order1);
+        CompletableFuture<Void> result2 = groupCommitter.commit(conflicting);
+
+        result1.get(5, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> result2.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCause(conflict);
+        Mockito.verify(orders).add(order1);
+    }
+
+    private Order paidOrder() {
+        Order order = OrderTestDataBuilder.anOrder().status(OrderStatus.PLACED).build();
+        order.markAsPaid();
+        return order;
+    }
+
+}
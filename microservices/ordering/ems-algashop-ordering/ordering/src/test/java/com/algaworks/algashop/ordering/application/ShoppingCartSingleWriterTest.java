@@ -0,0 +1,170 @@
+package com.algaworks.algashop.ordering.application;
+
+import com.algaworks.algashop.ordering.domain.model.entity.ProductTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCart;
+import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCartTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.repository.ShoppingCarts;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Quantity;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.ShoppingCartId;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class ShoppingCartSingleWriterTest {
+
+    @Mock
+    private ShoppingCarts shoppingCarts;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ShoppingCartSingleWriter singleWriter;
+
+    @BeforeEach
+    public void setup() {
+        Mockito.when(transactionManager.getTransaction(Mockito.any())).thenReturn(new SimpleTransactionStatus());
+        AggregateCommandExecutor commandExecutor = new AggregateCommandExecutor(
+                transactionManager, new SimpleMeterRegistry(), 3, Duration.ZERO, Duration.ZERO);
+        singleWriter = new ShoppingCartSingleWriter(shoppingCarts, commandExecutor, 64);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        singleWriter.shutdown();
+    }
+
+    @Test
+    public void shouldApplyQueuedMutationsInOrderWithinOneSave() throws Exception {
+        ShoppingCart shoppingCart = ShoppingCartTestDataBuilder.aShoppingCart().withItems(false).build();
+        ShoppingCartId shoppingCartId = shoppingCart.id();
+        Mockito.when(shoppingCarts.ofId(shoppingCartId)).thenReturn(Optional.of(shoppingCart));
+
+        CountDownLatch firstMutationStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstMutation = new CountDownLatch(1);
+        List<Integer> appliedOrder = Collections.synchronizedList(new ArrayList<>());
+
+        CompletableFuture<Void> first = singleWriter.submit(shoppingCartId, cart -> {
+            firstMutationStarted.countDown();
+            await(releaseFirstMutation);
+            appliedOrder.add(0);
+        });
+        assertThat(firstMutationStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        List<CompletableFuture<Void>> queued = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            int position = i;
+            queued.add(singleWriter.submit(shoppingCartId, cart -> {
+                appliedOrder.add(position);
+                cart.addItem(ProductTestDataBuilder.aProduct().build(), new Quantity(1));
+            }));
+        }
+
+        releaseFirstMutation.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        CompletableFuture.allOf(queued.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertThat(appliedOrder).containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(shoppingCart.totalItems()).isEqualTo(new Quantity(5));
+        Mockito.verify(shoppingCarts, Mockito.times(2)).ofId(shoppingCartId);
+        Mockito.verify(shoppingCarts, Mockito.times(2)).add(shoppingCart);
+    }
+
+    @Test
+    public void shouldFailOnlyTheMutationThatThrows() throws Exception {
+        ShoppingCart shoppingCart = ShoppingCartTestDataBuilder.aShoppingCart().withItems(false).build();
+        Mockito.when(shoppingCarts.ofId(shoppingCart.id())).thenReturn(Optional.of(shoppingCart));
+
+        CompletableFuture<Void> failing = singleWriter.submit(shoppingCart.id(), cart -> {
+            throw new IllegalStateException();
+        });
+
+        assertThat(failing).failsWithin(Duration.ofSeconds(5));
+        singleWriter.submit(shoppingCart.id(), cart -> { }).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldNotSaveThePartialChangesOfAFailedMutation() throws Exception {
+        ShoppingCart shoppingCart = ShoppingCartTestDataBuilder.aShoppingCart().withItems(false).build();
+        ShoppingCartId shoppingCartId = shoppingCart.id();
+        Mockito.when(shoppingCarts.ofId(shoppingCartId)).thenAnswer(invocation ->
+                Optional.of(ShoppingCartTestDataBuilder.aShoppingCart().withItems(false).build()));
+
+        CountDownLatch firstMutationStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstMutation = new CountDownLatch(1);
+        CompletableFuture<Void> first = singleWriter.submit(shoppingCartId, cart -> {
+            firstMutationStarted.countDown();
+            await(releaseFirstMutation);
+        });
+        assertThat(firstMutationStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Void> failing = singleWriter.submit(shoppingCartId, cart -> {
+            cart.addItem(ProductTestDataBuilder.aProductAltMousePad().build(), new Quantity(1));
+            throw new IllegalStateException();
+        });
+        CompletableFuture<Void> succeeding = singleWriter.submit(shoppingCartId,
+                cart -> cart.addItem(ProductTestDataBuilder.aProduct().build(), new Quantity(1)));
+
+        releaseFirstMutation.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        succeeding.get(5, TimeUnit.SECONDS);
+        assertThat(failing).failsWithin(Duration.ofSeconds(5));
+
+        ArgumentCaptor<ShoppingCart> saved = ArgumentCaptor.forClass(ShoppingCart.class);
+        Mockito.verify(shoppingCarts, Mockito.times(2)).add(saved.capture());
+        assertThat(saved.getAllValues().getLast().totalItems()).isEqualTo(new Quantity(1));
+    }
+
+    @Test
+    public void shouldQueueCartAndCustomerSubmissionsInTheSameMailbox() throws Exception {
+        ShoppingCart shoppingCart = ShoppingCartTestDataBuilder.aShoppingCart().withItems(false).build();
+        ShoppingCartId shoppingCartId = shoppingCart.id();
+        Mockito.when(shoppingCarts.ofId(shoppingCartId)).thenReturn(Optional.of(shoppingCart));
+        Mockito.when(shoppingCarts.ofCustomer(shoppingCart.customerId())).thenReturn(Optional.of(shoppingCart));
+
+        CountDownLatch firstMutationStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstMutation = new CountDownLatch(1);
+        List<Integer> appliedOrder = Collections.synchronizedList(new ArrayList<>());
+
+        CompletableFuture<Void> byCart = singleWriter.submit(shoppingCartId, cart -> {
+            firstMutationStarted.countDown();
+            await(releaseFirstMutation);
+            appliedOrder.add(0);
+        });
+        assertThat(firstMutationStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> byCustomer = singleWriter.submit(shoppingCart.customerId(), cart -> appliedOrder.add(1));
+
+        releaseFirstMutation.countDown();
+        CompletableFuture.allOf(byCart, byCustomer).get(5, TimeUnit.SECONDS);
+
+        assertThat(appliedOrder).containsExactly(0, 1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -5,6 +5,7 @@ import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
 
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.util.UUID;
 
 public class CustomerTestDataBuilder {
 
@@ -17,7 +18,7 @@ public class CustomerTestDataBuilder {
         return Customer.brandNew()
                 .fullName(new FullName("John","Doe"))
                 .birthDate(new BirthDate(LocalDate.of(1991, 7,5)))
-                .email(new Email("johndoe@email.com"))
+                .email(new Email("johndoe+" + UUID.randomUUID() + "@email.com"))
                 .phone(new Phone("478-256-2604"))
                 .document(new Document("255-08-0578"))
                 .promotionNotificationsAllowed(true)
@@ -41,7 +42,7 @@ public class CustomerTestDataBuilder {
                 .archivedAt(null)
                 .fullName(new FullName("John","Doe"))
                 .birthDate(new BirthDate(LocalDate.of(1991, 7,5)))
-                .email(new Email("johndoe@email.com"))
+                .email(new Email("johndoe+" + UUID.randomUUID() + "@email.com"))
                 .phone(new Phone("478-256-2604"))
                 .document(new Document("255-08-0578"))
                 .promotionNotificationsAllowed(true)
@@ -0,0 +1,102 @@
+package com.algaworks.algashop.ordering.domain.model.entity;
+
+import com.algaworks.algashop.ordering.domain.model.valueobject.Quantity;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.OrderItemId;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrderChangeTrackingTest {
+
+    @Test
+    void givenHydratedOrder_shouldNotHaveChanges() {
+        Order order = OrderTestDataBuilder.anOrder().build();
+        Order hydrated = Order.existing()
+                .id(order.id())
+                .version(0L)
+                .customerId(order.customerId())
+                .totalAmount(order.totalAmount())
+                .totalItems(order.totalItems())
+                .billing(order.billing())
+                .shipping(order.shipping())
+                .status(order.status())
+                .paymentMethod(order.paymentMethod())
+                .items(new HashSet<>(order.items()))
+                .build();
+
+        assertThat(hydrated.changes().hasChanges()).isFalse();
+    }
+
+    @Test
+    void givenDraftOrder_whenPaymentMethodChanges_shouldTrackOnlyThatField() {
+        Order order = OrderTestDataBuilder.anOrder().paymentMethod(PaymentMethod.GATEWAY_BALANCE).build();
+        order.changes().clear();
+
+        order.changePaymentMethod(PaymentMethod.CREDIT_CARD);
+
+        assertThat(order.changes().dirtyFields()).containsExactly(Order.Field.PAYMENT_METHOD);
+        assertThat(order.changes().hasItemChanges()).isFalse();
+    }
+
+    @Test
+    void givenDraftOrder_whenSameValueIsSet_shouldNotTrackChange() {
+        Order order = OrderTestDataBuilder.anOrder().paymentMethod(PaymentMethod.CREDIT_CARD).build();
+        order.changes().clear();
+
+        order.changePaymentMethod(PaymentMethod.CREDIT_CARD);
+
+        assertThat(order.changes().hasChanges()).isFalse();
+    }
+
+    @Test
+    void givenDraftOrder_whenItemsChange_shouldTrackItemIds() {
+        Order order = OrderTestDataBuilder.anOrder().build();
+        order.changes().clear();
+        OrderItemId changedItemId = order.items().iterator().next().id();
+
+        order.changeItemQuantity(changedItemId, new Quantity(10));
+        order.addItem(ProductTestDataBuilder.aProductAltMousePad().build(), new Quantity(1));
+
+        assertThat(order.changes().changedItems()).containsExactly(changedItemId);
+        assertThat(order.changes().addedItems()).hasSize(1).doesNotContain(changedItemId);
+        assertThat(order.changes().dirtyFields()).contains(Order.Field.TOTAL_AMOUNT, Order.Field.TOTAL_ITEMS);
+    }
+
+    @Test
+    void givenItemAddedSinceLastSave_whenRemoved_shouldNotTrackIt() {
+        Order order = OrderTestDataBuilder.anOrder().build();
+        order.changes().clear();
+
+        order.addItem(ProductTestDataBuilder.aProductAltMousePad().build(), new Quantity(1));
+        OrderItemId addedItemId = order.changes().addedItems().iterator().next();
+        order.removeItem(addedItemId);
+
+        assertThat(order.changes().hasItemChanges()).isFalse();
+    }
+
+    @Test
+    void givenWrittenChanges_whenRestored_shouldTrackThemAheadOfLaterChanges() {
+        Order order = OrderTestDataBuilder.anOrder().build();
+        order.changes().clear();
+
+        order.addItem(ProductTestDataBuilder.aProductAltMousePad().build(), new Quantity(1));
+        OrderItemId addedItemId = order.changes().addedItems().iterator().next();
+        OrderItemId removedItemId = order.items().stream()
+                .map(OrderItem::id)
+                .filter(itemId -> !itemId.equals(addedItemId))
+                .findFirst().orElseThrow();
+        ChangeTracker.Snapshot<Order.Field, OrderItemId> written = order.changes().snapshot();
+        order.changes().clear();
+
+        order.removeItem(addedItemId);
+        order.removeItem(removedItemId);
+        order.changes().restore(written);
+
+        assertThat(order.changes().addedItems()).isEmpty();
+        assertThat(order.changes().removedItems()).containsExactly(removedItemId);
+        assertThat(order.changes().dirtyFields()).contains(Order.Field.TOTAL_AMOUNT, Order.Field.TOTAL_ITEMS);
+    }
+
+}
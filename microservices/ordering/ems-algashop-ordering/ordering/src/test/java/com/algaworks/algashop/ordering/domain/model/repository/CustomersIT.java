@@ -7,14 +7,17 @@ import com.algaworks.algashop.ordering.domain.model.valueobject.FullName;
 import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
 import com.algaworks.algashop.ordering.infrastructure.persistence.assembler.CustomerPersistenceEntityAssembler;
 import com.algaworks.algashop.ordering.infrastructure.persistence.disassembler.CustomerPersistenceEntityDisassembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.provider.AggregateMetadataRegistry;
 import com.algaworks.algashop.ordering.infrastructure.persistence.provider.CustomersPersistenceProvider;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -22,7 +25,8 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 @DataJpaTest
 @Import({CustomersPersistenceProvider.class,
         CustomerPersistenceEntityAssembler.class,
-        CustomerPersistenceEntityDisassembler.class})
+        CustomerPersistenceEntityDisassembler.class,
+        AggregateMetadataRegistry.class})
 class CustomersIT {
 
     private Customers customers;
@@ -89,6 +93,25 @@ class CustomersIT {
 
     }
 
+    @Test
+    public void shouldAddAllInBatches() {
+        Customer customer1 = CustomerTestDataBuilder.brandNewCustomer().build();
+        Customer customer2 = CustomerTestDataBuilder.brandNewCustomer().build();
+
+        customers.addAll(List.of(customer1, customer2));
+
+        Assertions.assertThat(customers.count()).isEqualTo(2L);
+        Assertions.assertThat(customer1.version()).isZero();
+
+        Customer savedCustomer = customers.ofId(customer1.id()).orElseThrow();
+        savedCustomer.archive();
+
+        customers.addAll(List.of(savedCustomer, customer2));
+
+        Assertions.assertThat(customers.ofId(customer1.id()).orElseThrow().isArchived()).isTrue();
+        Assertions.assertThat(customers.ofId(customer2.id()).orElseThrow().isArchived()).isFalse();
+    }
+
     @Test
     public void shouldCountExistingOrders() {
         Assertions.assertThat(customers.count()).isZero();
@@ -131,4 +154,29 @@ class CustomersIT {
         Assertions.assertThat(customers.isEmailUnique(new Email("alex@gmail.com"), new CustomerId())).isTrue();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldFindByEmailIgnoringCase() {
+        Customer customer = CustomerTestDataBuilder.brandNewCustomer().build();
+        customers.add(customer);
+
+        Email variant = new Email(customer.email().value().toUpperCase());
+
+        Assertions.assertThat(customers.ofEmail(variant)).isPresent();
+        Assertions.assertThat(customers.isEmailUnique(variant, new CustomerId())).isFalse();
+        Assertions.assertThat(customers.isEmailUnique(variant, customer.id())).isTrue();
+    }
+
+    @Test
+    public void shouldRejectEmailsThatOnlyDifferInCase() {
+        Customer customer = CustomerTestDataBuilder.brandNewCustomer().build();
+        customers.add(customer);
+
+        Customer duplicate = CustomerTestDataBuilder.brandNewCustomer()
+                .email(new Email(customer.email().value().toUpperCase()))
+                .build();
+
+        Assertions.assertThatExceptionOfType(DataIntegrityViolationException.class)
+                .isThrownBy(() -> customers.add(duplicate));
+    }
+
+}
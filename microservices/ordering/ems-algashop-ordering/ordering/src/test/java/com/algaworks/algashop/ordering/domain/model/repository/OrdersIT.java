@@ -11,6 +11,8 @@ import com.algaworks.algashop.ordering.infrastructure.persistence.assembler.Cust
 import com.algaworks.algashop.ordering.infrastructure.persistence.assembler.OrderPersistenceEntityAssembler;
 import com.algaworks.algashop.ordering.infrastructure.persistence.disassembler.CustomerPersistenceEntityDisassembler;
 import com.algaworks.algashop.ordering.infrastructure.persistence.disassembler.OrderPersistenceEntityDisassembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.provider.AggregateMetadataRegistry;
+import com.algaworks.algashop.ordering.infrastructure.persistence.provider.CustomerSalesSummaryProvider;
 import com.algaworks.algashop.ordering.infrastructure.persistence.provider.CustomersPersistenceProvider;
 import com.algaworks.algashop.ordering.infrastructure.persistence.provider.OrdersPersistenceProvider;
 import org.assertj.core.api.Assertions;
@@ -29,7 +31,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
 @Import({
+        AggregateMetadataRegistry.class,
         OrdersPersistenceProvider.class,
+        CustomerSalesSummaryProvider.class,
         OrderPersistenceEntityAssembler.class,
         OrderPersistenceEntityDisassembler.class,
         CustomersPersistenceProvider.class,
@@ -121,6 +125,52 @@ class OrdersIT {
 
     }
 
+    @Test
+    public void shouldAddAllInBatches() {
+        List<Order> newOrders = List.of(
+                OrderTestDataBuilder.anOrder().build(),
+                OrderTestDataBuilder.anOrder().status(OrderStatus.PLACED).build(),
+                OrderTestDataBuilder.anOrder().status(OrderStatus.PAID).build()
+        );
+
+        orders.addAll(newOrders);
+
+        Assertions.assertThat(orders.count()).isEqualTo(3L);
+        Assertions.assertThat(newOrders).allSatisfy(o -> Assertions.assertThat(o.version()).isZero());
+
+        Order draftOrder = orders.ofId(newOrders.get(0).id()).orElseThrow();
+        draftOrder.place();
+        Order placedOrder = orders.ofId(newOrders.get(1).id()).orElseThrow();
+        placedOrder.markAsPaid();
+
+        orders.addAll(List.of(draftOrder, placedOrder));
+
+        Assertions.assertThat(orders.ofId(draftOrder.id()).orElseThrow().isPlaced()).isTrue();
+        Assertions.assertThat(orders.ofId(placedOrder.id()).orElseThrow().isPaid()).isTrue();
+    }
+
+    @Test
+    public void shouldNotAllowStaleUpdatesInBatch() {
+        Order order = OrderTestDataBuilder.anOrder().status(OrderStatus.PLACED).build();
+        orders.add(order);
+
+        Order orderT1 = orders.ofId(order.id()).orElseThrow();
+        Order orderT2 = orders.ofId(order.id()).orElseThrow();
+
+        orderT1.markAsPaid();
+        orders.addAll(List.of(orderT1));
+
+        orderT2.cancel();
+
+        Assertions.assertThatExceptionOfType(ObjectOptimisticLockingFailureException.class)
+                .isThrownBy(()-> orders.addAll(List.of(orderT2)));
+
+        Order savedOrder = orders.ofId(order.id()).orElseThrow();
+
+        Assertions.assertThat(savedOrder.canceledAt()).isNull();
+        Assertions.assertThat(savedOrder.paidAt()).isNotNull();
+    }
+
     @Test
     public void shouldCountExistingOrders() {
         Assertions.assertThat(orders.count()).isZero();
@@ -134,6 +184,17 @@ class OrdersIT {
         Assertions.assertThat(orders.count()).isEqualTo(2L);
     }
 
+    @Test
+    public void shouldCountExistingOrdersByStatus() {
+        orders.add(OrderTestDataBuilder.anOrder().status(OrderStatus.PLACED).build());
+        orders.add(OrderTestDataBuilder.anOrder().status(OrderStatus.PLACED).build());
+        orders.add(OrderTestDataBuilder.anOrder().status(OrderStatus.PAID).build());
+
+        Assertions.assertThat(orders.count(OrderStatus.PLACED)).isEqualTo(2L);
+        Assertions.assertThat(orders.count(OrderStatus.PAID)).isEqualTo(1L);
+        Assertions.assertThat(orders.count(OrderStatus.CANCELED)).isZero();
+    }
+
     @Test
     public void shouldReturnIfOrderExists() {
         Order order = OrderTestDataBuilder.anOrder().build();
@@ -0,0 +1,83 @@
+package com.algaworks.algashop.ordering.domain.model.validator;
+
+import org.apache.commons.validator.routines.EmailValidator;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class FieldValidationsTest {
+
+    private static final List<String> EMAILS = List.of(
+            "johndoe@email.com",
+            "John.Doe+orders@Email.COM",
+            "john_doe-99%x@sub.domain.com.br",
+            "a@b.io",
+            "johndoe@email.notatld",
+            "johndoe@email.c0m",
+            "johndoe@localhost",
+            "johndoe@-email.com",
+            "johndoe@email-.com",
+            "johndoe@email..com",
+            "johndoe@email.com.",
+            ".johndoe@email.com",
+            "john..doe@email.com",
+            "johndoe.@email.com",
+            "john doe@email.com",
+            " johndoe@email.com ",
+            "\"john doe\"@email.com",
+            "john!#$&'*/=?^`{|}~@email.com",
+            "johndoe@[192.168.0.1]",
+            "johndoe@münchen.de",
+            "jöhndoe@email.com",
+            "johndoe@@email.com",
+            "@email.com",
+            "johndoe@",
+            "a".repeat(64) + "@email.com",
+            "a".repeat(65) + "@email.com",
+            "johndoe@" + "a".repeat(63) + ".com",
+            "johndoe@" + "a".repeat(64) + ".com"
+    );
+
+    @Test
+    public void shouldOnlyAcceptOnFastPathWhatFullValidatorAccepts() {
+        for (String email : EMAILS) {
+            if (AsciiEmailValidator.isPlainValid(email)) {
+                Assertions.assertThat(EmailValidator.getInstance().isValid(email)).as(email).isTrue();
+            }
+        }
+    }
+
+    @Test
+    public void shouldTakeFastPathForCommonEmails() {
+        Assertions.assertThat(AsciiEmailValidator.isPlainValid("johndoe@email.com")).isTrue();
+        Assertions.assertThat(AsciiEmailValidator.isPlainValid("John.Doe+orders@Email.COM")).isTrue();
+        Assertions.assertThat(AsciiEmailValidator.isPlainValid("john_doe-99%x@sub.domain.com.br")).isTrue();
+    }
+
+    @Test
+    public void shouldAgreeWithFullValidatorOnEveryInput() {
+        for (String email : EMAILS) {
+            boolean expected = EmailValidator.getInstance().isValid(email);
+            if (expected) {
+                Assertions.assertThatNoException().as(email)
+                        .isThrownBy(() -> FieldValidations.requiresValidEmail(email));
+            } else {
+                Assertions.assertThatIllegalArgumentException().as(email)
+                        .isThrownBy(() -> FieldValidations.requiresValidEmail(email));
+            }
+        }
+    }
+
+    @Test
+    public void shouldRequireExactLength() {
+        Assertions.assertThatNoException().isThrownBy(() -> FieldValidations.requiresLength("12345", 5));
+        Assertions.assertThatIllegalArgumentException().isThrownBy(() -> FieldValidations.requiresLength("1234", 5))
+                .withMessage("Value must have exactly 5 characters");
+        Assertions.assertThatIllegalArgumentException()
+                .isThrownBy(() -> FieldValidations.requiresLength("1234", 5, "Invalid zip code"))
+                .withMessage("Invalid zip code");
+        Assertions.assertThatNullPointerException().isThrownBy(() -> FieldValidations.requiresLength(null, 5));
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.algaworks.algashop.ordering.domain.model.validator;
+
+import com.algaworks.algashop.ordering.domain.model.valueobject.BirthDate;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Email;
+import com.algaworks.algashop.ordering.domain.model.valueobject.FullName;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+class TrustedHydrationTest {
+
+    @Test
+    public void shouldSkipInputValidationOnlyWhileHydrating() {
+        Email hydrated = TrustedHydration.hydrate(() -> new Email("stored-before-stricter-rules"));
+
+        Assertions.assertThat(hydrated.value()).isEqualTo("stored-before-stricter-rules");
+        Assertions.assertThat(TrustedHydration.isActive()).isFalse();
+        Assertions.assertThatIllegalArgumentException()
+                .isThrownBy(() -> new Email("stored-before-stricter-rules"));
+    }
+
+    @Test
+    public void shouldKeepStoredValuesAsTheyAre() {
+        FullName fullName = TrustedHydration.hydrate(() -> new FullName("John", "Doe"));
+        BirthDate birthDate = TrustedHydration.hydrate(() -> new BirthDate(LocalDate.now().plusDays(1)));
+
+        Assertions.assertThat(fullName).isEqualTo(new FullName("John", "Doe"));
+        Assertions.assertThat(birthDate.value()).isAfter(LocalDate.now());
+    }
+
+    @Test
+    public void shouldStillRejectMissingValues() {
+        Assertions.assertThatNullPointerException()
+                .isThrownBy(() -> TrustedHydration.hydrate(() -> new Email(null)));
+        Assertions.assertThatNullPointerException()
+                .isThrownBy(() -> TrustedHydration.hydrate(() -> new FullName(null, "Doe")));
+    }
+
+    @Test
+    public void shouldLeaveScopeWhenHydrationFailsOrIsNested() {
+        Assertions.assertThatIllegalStateException().isThrownBy(() -> TrustedHydration.hydrate(() -> {
+            throw new IllegalStateException();
+        }));
+        Assertions.assertThat(TrustedHydration.isActive()).isFalse();
+
+        boolean activeAfterNested = TrustedHydration.hydrate(() -> {
+            TrustedHydration.hydrate(() -> true);
+            return TrustedHydration.isActive();
+        });
+        Assertions.assertThat(activeAfterNested).isTrue();
+        Assertions.assertThat(TrustedHydration.isActive()).isFalse();
+    }
+
+}
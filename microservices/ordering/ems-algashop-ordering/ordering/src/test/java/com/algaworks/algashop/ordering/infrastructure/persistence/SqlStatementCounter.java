@@ -0,0 +1,39 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> statements = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        statements.get().add(sql);
+        return sql;
+    }
+
+    public static void reset() {
+        statements.get().clear();
+    }
+
+    public static List<String> statements() {
+        return List.copyOf(statements.get());
+    }
+
+    public static long selects() {
+        return statements.get().stream()
+                .filter(sql -> sql.stripLeading().toLowerCase(Locale.ROOT).startsWith("select"))
+                .count();
+    }
+
+    public static long updatesOf(String table) {
+        String prefix = "update " + table.toLowerCase(Locale.ROOT) + " ";
+        return statements.get().stream()
+                .filter(sql -> sql.stripLeading().toLowerCase(Locale.ROOT).startsWith(prefix))
+                .count();
+    }
+}
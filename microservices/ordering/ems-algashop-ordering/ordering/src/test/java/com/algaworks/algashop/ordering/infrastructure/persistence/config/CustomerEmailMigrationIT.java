@@ -0,0 +1,46 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.config;
+
+import com.algaworks.algashop.ordering.infrastructure.persistence.entity.CustomerPersistenceEntity;
+import com.algaworks.algashop.ordering.infrastructure.persistence.entity.CustomerPersistenceEntityTestDataBuilder;
+import com.algaworks.algashop.ordering.infrastructure.persistence.repository.CustomerPersistenceEntityRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest
+@Import({CustomerEmailMigration.class, SpringDataAuditingConfig.class})
+class CustomerEmailMigrationIT {
+
+    private final CustomerEmailMigration migration;
+    private final CustomerPersistenceEntityRepository customerPersistenceEntityRepository;
+    private final TestEntityManager entityManager;
+
+    @Autowired
+    public CustomerEmailMigrationIT(CustomerEmailMigration migration,
+                                    CustomerPersistenceEntityRepository customerPersistenceEntityRepository,
+                                    TestEntityManager entityManager) {
+        this.migration = migration;
+        this.customerPersistenceEntityRepository = customerPersistenceEntityRepository;
+        this.entityManager = entityManager;
+    }
+
+    @Test
+    public void shouldNormalizeEmailOfExistingRows() {
+        CustomerPersistenceEntity customer = customerPersistenceEntityRepository.saveAndFlush(
+                CustomerPersistenceEntityTestDataBuilder.aCustomer().email("John.Doe@Email.com").build());
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE \"customer\" SET email_normalized = NULL WHERE id = :id")
+                .setParameter("id", customer.getId())
+                .executeUpdate();
+        entityManager.clear();
+
+        migration.migrate();
+
+        Assertions.assertThat(customerPersistenceEntityRepository.findByEmailNormalized("john.doe@email.com"))
+                .isPresent();
+    }
+
+}
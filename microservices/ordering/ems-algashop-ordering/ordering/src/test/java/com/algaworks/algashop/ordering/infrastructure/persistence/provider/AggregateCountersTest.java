@@ -0,0 +1,109 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+class AggregateCountersTest {
+
+    private final AggregateCounters counters = new AggregateCounters(Duration.ofMinutes(5));
+
+    @Test
+    public void shouldNotAnswerBeforeBeingSeeded() {
+        counters.register(String.class, () -> 3L, Map::of);
+
+        Assertions.assertThat(counters.count(String.class)).isEmpty();
+        Assertions.assertThat(counters.count(Integer.class)).isEmpty();
+    }
+
+    @Test
+    public void shouldSeedFromDatabaseAndApplyDeltas() {
+        counters.register(String.class, () -> 3L, () -> Map.of("PLACED", 2L, "PAID", 1L));
+        counters.reconcile();
+
+        counters.added(String.class, "PLACED");
+        counters.moved(String.class, "PLACED", "PAID");
+        counters.removed(String.class, "PAID");
+
+        Assertions.assertThat(counters.count(String.class)).hasValue(3L);
+        Assertions.assertThat(counters.count(String.class, "PLACED")).hasValue(2L);
+        Assertions.assertThat(counters.count(String.class, "PAID")).hasValue(1L);
+        Assertions.assertThat(counters.count(String.class, "CANCELED")).hasValue(0L);
+    }
+
+    @Test
+    public void shouldApplyDeltasOnlyAfterCommit() {
+        counters.register(String.class, () -> 0L, Map::of);
+        counters.reconcile();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            counters.added(String.class, null);
+            Assertions.assertThat(counters.count(String.class)).hasValue(0L);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        Assertions.assertThat(counters.count(String.class)).hasValue(1L);
+    }
+
+    @Test
+    public void shouldDiscardDeltasOfRolledBackTransactions() {
+        counters.register(String.class, () -> 0L, Map::of);
+        counters.reconcile();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            counters.added(String.class, null);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        Assertions.assertThat(counters.count(String.class)).hasValue(0L);
+    }
+
+    @Test
+    public void shouldCorrectDriftOnReconcile() {
+        AtomicLong total = new AtomicLong(5);
+        Map<String, Long> buckets = new HashMap<>(Map.of("PLACED", 5L));
+        counters.register(String.class, total::get, () -> buckets);
+        counters.reconcile();
+
+        total.set(7);
+        buckets.put("PLACED", 6L);
+        buckets.put("PAID", 1L);
+        counters.reconcile();
+
+        Assertions.assertThat(counters.count(String.class)).hasValue(7L);
+        Assertions.assertThat(counters.count(String.class, "PLACED")).hasValue(6L);
+        Assertions.assertThat(counters.count(String.class, "PAID")).hasValue(1L);
+    }
+
+    @Test
+    public void shouldSkipReconcileWhenWritesHappenWhileCounting() {
+        AtomicLong total = new AtomicLong(1);
+        AtomicLong queries = new AtomicLong();
+        counters.register(String.class, () -> {
+            if (queries.incrementAndGet() > 1) {
+                counters.added(String.class, null);
+            }
+            return total.get();
+        }, Map::of);
+        counters.reconcile();
+
+        total.set(10);
+        counters.reconcile();
+
+        Assertions.assertThat(counters.count(String.class)).hasValue(2L);
+    }
+
+}
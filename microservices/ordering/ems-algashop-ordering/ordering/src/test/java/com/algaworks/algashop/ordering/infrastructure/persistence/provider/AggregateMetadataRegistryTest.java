@@ -0,0 +1,49 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import com.algaworks.algashop.ordering.domain.model.entity.Customer;
+import com.algaworks.algashop.ordering.domain.model.entity.CustomerTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.entity.Order;
+import com.algaworks.algashop.ordering.domain.model.entity.OrderTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCart;
+import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCartTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.OrderId;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class AggregateMetadataRegistryTest {
+
+    private final AggregateMetadataRegistry registry = new AggregateMetadataRegistry();
+
+    @Test
+    public void shouldReadIdAndVersion() {
+        Order order = OrderTestDataBuilder.anOrder().build();
+        AggregateMetadata<Order, OrderId> metadata = registry.of(Order.class);
+
+        Assertions.assertThat(metadata.id(order)).isEqualTo(order.id());
+        Assertions.assertThat(metadata.version(order)).isNull();
+    }
+
+    @Test
+    public void shouldWriteVersion() {
+        Customer customer = CustomerTestDataBuilder.brandNewCustomer().build();
+        AggregateMetadata<Customer, CustomerId> metadata = registry.of(Customer.class);
+
+        metadata.version(customer, 3L);
+
+        Assertions.assertThat(customer.version()).isEqualTo(3L);
+    }
+
+    @Test
+    public void shouldWriteVersionOfEachAggregateType() {
+        Order order = OrderTestDataBuilder.anOrder().build();
+        ShoppingCart shoppingCart = ShoppingCartTestDataBuilder.aShoppingCart().build();
+
+        registry.of(Order.class).version(order, 5L);
+        registry.of(ShoppingCart.class).version(shoppingCart, 7L);
+
+        Assertions.assertThat(order.version()).isEqualTo(5L);
+        Assertions.assertThat(shoppingCart.version()).isEqualTo(7L);
+    }
+
+}
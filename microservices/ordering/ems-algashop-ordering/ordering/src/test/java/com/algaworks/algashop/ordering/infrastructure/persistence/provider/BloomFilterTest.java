@@ -0,0 +1,47 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+    @Test
+    public void shouldNeverReportAddedValuesAsAbsent() {
+        BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bloomFilter.put("customer" + i + "@email.com");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            Assertions.assertThat(bloomFilter.mightContain("customer" + i + "@email.com")).isTrue();
+        }
+    }
+
+    @Test
+    public void shouldKeepFalsePositivesCloseToConfiguredProbability() {
+        BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bloomFilter.put("customer" + i + "@email.com");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (bloomFilter.mightContain("unknown" + i + "@email.com")) {
+                falsePositives++;
+            }
+        }
+
+        Assertions.assertThat(falsePositives / 100_000d).isLessThan(0.02);
+        Assertions.assertThat(bloomFilter.estimatedFalsePositiveProbability()).isLessThan(0.02);
+    }
+
+    @Test
+    public void shouldSizeBitsFromExpectedInsertionsAndProbability() {
+        BloomFilter bloomFilter = new BloomFilter(1_000_000, 0.01);
+
+        Assertions.assertThat(bloomFilter.bitSize()).isBetween(9_500_000L, 9_700_000L);
+        Assertions.assertThat(bloomFilter.hashFunctions()).isEqualTo(7);
+        Assertions.assertThat(bloomFilter.memoryBytes()).isEqualTo(bloomFilter.bitSize() / 8);
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import com.algaworks.algashop.ordering.infrastructure.persistence.entity.CustomerPersistenceEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+class CustomerCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CustomerCache customerCache = new CustomerCache(meterRegistry, 100, Duration.ofMinutes(10));
+    private final UUID customerId = UUID.randomUUID();
+
+    @AfterEach
+    public void clearTransaction() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.unbindResourceIfPossible(customerCache);
+    }
+
+    @Test
+    public void shouldServeCachedSnapshotsByIdAndEmail() {
+        CustomerPersistenceEntity persistenceEntity = aCustomer(1L, "john.doe@email.com");
+        customerCache.put(persistenceEntity);
+        persistenceEntity.setFirstName("Changed");
+
+        CustomerPersistenceEntity cached = customerCache.ofId(customerId).orElseThrow();
+        Assertions.assertThat(cached.getFirstName()).isEqualTo("John");
+        Assertions.assertThat(customerCache.ofEmail("john.doe@email.com")).contains(cached);
+        Assertions.assertThat(customerCache.ofEmail("other@email.com")).isEmpty();
+    }
+
+    @Test
+    public void shouldIgnoreLoadsOlderThanCommittedWrites() {
+        customerCache.put(aCustomer(1L, "john.doe@email.com"));
+
+        customerCache.written(customerId, 2L);
+        Assertions.assertThat(customerCache.ofId(customerId)).isEmpty();
+
+        customerCache.put(aCustomer(1L, "john.doe@email.com"));
+        Assertions.assertThat(customerCache.ofId(customerId)).isEmpty();
+
+        customerCache.put(aCustomer(2L, "john.doe@email.com"));
+        Assertions.assertThat(customerCache.ofId(customerId)).map(CustomerPersistenceEntity::getVersion).contains(2L);
+    }
+
+    @Test
+    public void shouldBypassCacheForCustomersWrittenInCurrentTransaction() {
+        customerCache.put(aCustomer(1L, "john.doe@email.com"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        customerCache.written(customerId, 2L);
+
+        Assertions.assertThat(customerCache.ofId(customerId)).isEmpty();
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        Assertions.assertThat(customerCache.ofId(customerId)).isEmpty();
+        customerCache.put(aCustomer(2L, "john.doe@email.com"));
+        Assertions.assertThat(customerCache.ofId(customerId)).isPresent();
+    }
+
+    @Test
+    public void shouldDropEntryWhenWritingTransactionRollsBack() {
+        customerCache.put(aCustomer(1L, "john.doe@email.com"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        customerCache.written(customerId, 2L);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        customerCache.put(aCustomer(1L, "john.doe@email.com"));
+        Assertions.assertThat(customerCache.ofId(customerId)).isPresent();
+    }
+
+    @Test
+    public void shouldExposeHitRatioAndEvictionMetrics() {
+        customerCache.put(aCustomer(1L, "john.doe@email.com"));
+        customerCache.ofId(customerId);
+        customerCache.ofId(UUID.randomUUID());
+
+        Assertions.assertThat(meterRegistry.get("algashop.customer.cache.hit_ratio").gauge().value()).isEqualTo(0.5);
+        Assertions.assertThat(meterRegistry.get("cache.evictions").tag("cache", "customers").functionCounter()).isNotNull();
+    }
+
+    private CustomerPersistenceEntity aCustomer(Long version, String email) {
+        return CustomerPersistenceEntity.builder()
+                .id(customerId)
+                .firstName("John")
+                .lastName("Doe")
+                .email(email)
+                .emailNormalized(email)
+                .version(version)
+                .build();
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import com.algaworks.algashop.ordering.infrastructure.persistence.repository.CustomerPersistenceEntityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.stream.Stream;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerEmailFilterTest {
+
+    @Mock
+    private CustomerPersistenceEntityRepository persistenceRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CustomerEmailFilter emailFilter;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        emailFilter = new CustomerEmailFilter(persistenceRepository, meterRegistry, 1000, 0.01);
+    }
+
+    @Test
+    public void shouldTreatEveryEmailAsPossiblyPresentUntilBuilt() {
+        Assertions.assertThat(emailFilter.isReady()).isFalse();
+        Assertions.assertThat(emailFilter.mightExist("new@email.com")).isTrue();
+    }
+
+    @Test
+    public void shouldShortCircuitEmailsNeverSeen() {
+        Mockito.when(persistenceRepository.streamNormalizedEmails())
+                .thenReturn(Stream.of("john@email.com", "mary@email.com"));
+
+        emailFilter.build();
+
+        Assertions.assertThat(emailFilter.mightExist("john@email.com")).isTrue();
+        Assertions.assertThat(emailFilter.mightExist("someone.else@email.com")).isFalse();
+        Assertions.assertThat(meterRegistry.get("algashop.customer.email_filter.checks")
+                .tag("result", "absent").counter().count()).isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("algashop.customer.email_filter.insertions").gauge().value())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void shouldRememberEmailsAddedAfterBuild() {
+        Mockito.when(persistenceRepository.streamNormalizedEmails()).thenReturn(Stream.empty());
+        emailFilter.build();
+
+        emailFilter.put("fresh@email.com");
+
+        Assertions.assertThat(emailFilter.mightExist("fresh@email.com")).isTrue();
+    }
+
+}
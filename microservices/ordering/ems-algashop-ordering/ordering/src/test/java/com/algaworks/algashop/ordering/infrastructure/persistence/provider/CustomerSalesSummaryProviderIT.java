@@ -0,0 +1,158 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import com.algaworks.algashop.ordering.domain.model.entity.CustomerTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.entity.Order;
+import com.algaworks.algashop.ordering.domain.model.entity.OrderStatus;
+import com.algaworks.algashop.ordering.domain.model.entity.OrderTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Money;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Quantity;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.OrderId;
+import com.algaworks.algashop.ordering.infrastructure.persistence.assembler.CustomerPersistenceEntityAssembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.assembler.OrderPersistenceEntityAssembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.disassembler.CustomerPersistenceEntityDisassembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.disassembler.OrderPersistenceEntityDisassembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.entity.CustomerPersistenceEntity;
+import com.algaworks.algashop.ordering.infrastructure.persistence.entity.OrderPersistenceEntityTestDataBuilder;
+import com.algaworks.algashop.ordering.infrastructure.persistence.repository.CustomerSalesSummaryPersistenceEntityRepository;
+import com.algaworks.algashop.ordering.infrastructure.persistence.repository.OrderPersistenceEntityRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.Year;
+import java.util.List;
+import java.util.Set;
+
+@DataJpaTest
+@Import({
+        AggregateMetadataRegistry.class,
+        OrdersPersistenceProvider.class,
+        CustomerSalesSummaryProvider.class,
+        OrderPersistenceEntityAssembler.class,
+        OrderPersistenceEntityDisassembler.class,
+        CustomersPersistenceProvider.class,
+        CustomerPersistenceEntityAssembler.class,
+        CustomerPersistenceEntityDisassembler.class
+})
+class CustomerSalesSummaryProviderIT {
+
+    private final CustomerSalesSummaryProvider salesSummaryProvider;
+    private final OrdersPersistenceProvider ordersPersistenceProvider;
+    private final CustomersPersistenceProvider customersPersistenceProvider;
+    private final CustomerSalesSummaryPersistenceEntityRepository summaryRepository;
+    private final OrderPersistenceEntityRepository orderRepository;
+    private final TestEntityManager entityManager;
+
+    @Autowired
+    public CustomerSalesSummaryProviderIT(CustomerSalesSummaryProvider salesSummaryProvider,
+                                          OrdersPersistenceProvider ordersPersistenceProvider,
+                                          CustomersPersistenceProvider customersPersistenceProvider,
+                                          CustomerSalesSummaryPersistenceEntityRepository summaryRepository,
+                                          OrderPersistenceEntityRepository orderRepository,
+                                          TestEntityManager entityManager) {
+        this.salesSummaryProvider = salesSummaryProvider;
+        this.ordersPersistenceProvider = ordersPersistenceProvider;
+        this.customersPersistenceProvider = customersPersistenceProvider;
+        this.summaryRepository = summaryRepository;
+        this.orderRepository = orderRepository;
+        this.entityManager = entityManager;
+    }
+
+    @BeforeEach
+    public void setup() {
+        if (!customersPersistenceProvider.exists(CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID)) {
+            customersPersistenceProvider.add(CustomerTestDataBuilder.existingCustomer().build());
+        }
+    }
+
+    @Test
+    public void shouldCountOrderWhenPaidAndDiscountItWhenCanceled() {
+        CustomerId customerId = CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID;
+        Order order = OrderTestDataBuilder.anOrder().status(OrderStatus.PLACED).build();
+        ordersPersistenceProvider.add(order);
+
+        Assertions.assertThat(salesSummaryProvider.salesQuantity(customerId, Year.now())).isZero();
+
+        order.markAsPaid();
+        ordersPersistenceProvider.add(order);
+
+        Assertions.assertThat(salesSummaryProvider.salesQuantity(customerId, Year.now())).isEqualTo(1L);
+        Assertions.assertThat(salesSummaryProvider.totalSold(customerId)).isEqualTo(order.totalAmount());
+
+        order.cancel();
+        ordersPersistenceProvider.add(order);
+
+        Assertions.assertThat(salesSummaryProvider.salesQuantity(customerId, Year.now())).isZero();
+        Assertions.assertThat(salesSummaryProvider.totalSold(customerId)).isEqualTo(Money.ZERO);
+        Assertions.assertThat(salesSummaryProvider.verify()).isEmpty();
+    }
+
+    @Test
+    public void shouldSummarizeOrdersAddedInBatch() {
+        Order order1 = OrderTestDataBuilder.anOrder().status(OrderStatus.PAID).build();
+        Order order2 = OrderTestDataBuilder.anOrder().status(OrderStatus.PAID).build();
+
+        ordersPersistenceProvider.addAll(List.of(order1, order2));
+
+        CustomerId customerId = CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID;
+        Assertions.assertThat(salesSummaryProvider.salesQuantity(customerId, Year.now())).isEqualTo(2L);
+        Assertions.assertThat(salesSummaryProvider.totalSold(customerId))
+                .isEqualTo(order1.totalAmount().add(order2.totalAmount()));
+    }
+
+    @Test
+    public void shouldDetectAndRebuildInconsistentSummary() {
+        ordersPersistenceProvider.add(OrderTestDataBuilder.anOrder().status(OrderStatus.PAID).build());
+        summaryRepository.increment(CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID.value(), Year.now().getValue(),
+                5, BigDecimal.TEN);
+
+        Assertions.assertThat(salesSummaryProvider.verify()).hasSize(1);
+
+        salesSummaryProvider.rebuild();
+
+        Assertions.assertThat(salesSummaryProvider.verify()).isEmpty();
+        Assertions.assertThat(salesSummaryProvider.salesQuantity(CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID, Year.now()))
+                .isEqualTo(1L);
+    }
+
+    @Test
+    public void shouldBucketSalesByUtcYear() {
+        CustomerId customerId = CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID;
+        OffsetDateTime newYearInUtc = OffsetDateTime.parse("2023-12-31T22:30:00-03:00");
+        orderRepository.saveAndFlush(OrderPersistenceEntityTestDataBuilder.existingOrder()
+                .customer(entityManager.find(CustomerPersistenceEntity.class, customerId.value()))
+                .status(OrderStatus.PAID.name())
+                .placedAt(newYearInUtc)
+                .paidAt(newYearInUtc)
+                .build());
+
+        salesSummaryProvider.rebuild();
+
+        Assertions.assertThat(salesSummaryProvider.salesQuantity(customerId, Year.of(2024))).isEqualTo(1L);
+        Assertions.assertThat(salesSummaryProvider.salesQuantity(customerId, Year.of(2023))).isZero();
+        Assertions.assertThat(salesSummaryProvider.verify()).isEmpty();
+    }
+
+    @Test
+    public void shouldNotCountPaidOrdersThatWereNeverPlaced() {
+        Order order = Order.existing()
+                .id(new OrderId())
+                .customerId(CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID)
+                .totalAmount(new Money("100"))
+                .totalItems(new Quantity(1))
+                .status(OrderStatus.PAID)
+                .paidAt(OffsetDateTime.now())
+                .items(Set.of())
+                .build();
+
+        Assertions.assertThat(salesSummaryProvider.deltaOf(order)).isEmpty();
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import com.algaworks.algashop.ordering.domain.model.entity.Customer;
+import com.algaworks.algashop.ordering.domain.model.entity.CustomerTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.valueobject.FullName;
+import com.algaworks.algashop.ordering.infrastructure.persistence.assembler.CustomerPersistenceEntityAssembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.disassembler.CustomerPersistenceEntityDisassembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.entity.CustomerPersistenceEntity;
+import com.algaworks.algashop.ordering.infrastructure.persistence.repository.CustomerPersistenceEntityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest
+@Import({
+        CustomersPersistenceProvider.class,
+        CustomerPersistenceEntityAssembler.class,
+        CustomerPersistenceEntityDisassembler.class,
+        AggregateMetadataRegistry.class,
+        CustomerCache.class,
+        SimpleMeterRegistry.class
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CustomersPersistenceProviderIT {
+
+    private final CustomersPersistenceProvider customers;
+    private final CustomerPersistenceEntityRepository entityRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private Customer customer;
+
+    @Autowired
+    public CustomersPersistenceProviderIT(CustomersPersistenceProvider customers,
+                                          CustomerPersistenceEntityRepository entityRepository,
+                                          PlatformTransactionManager transactionManager) {
+        this.customers = customers;
+        this.entityRepository = entityRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @BeforeEach
+    public void setup() {
+        customer = CustomerTestDataBuilder.brandNewCustomer().build();
+        customers.add(customer);
+        customers.ofId(customer.id()).orElseThrow();
+    }
+
+    @Test
+    public void shouldReadTheDatabaseInsideReadWriteTransactions() {
+        String firstName = transactionTemplate.execute(status -> {
+            renameBehindTheCache("Changed");
+            return customers.ofId(customer.id()).orElseThrow().fullName().firstName();
+        });
+
+        Assertions.assertThat(firstName).isEqualTo("Changed");
+    }
+
+    @Test
+    public void shouldNotServeACachedCustomerChangedBehindTheCache() {
+        transactionTemplate.executeWithoutResult(status -> renameBehindTheCache("Changed"));
+
+        Assertions.assertThat(customers.ofId(customer.id()).orElseThrow().fullName().firstName())
+                .isEqualTo("Changed");
+        Assertions.assertThat(customers.ofEmail(customer.email()).orElseThrow().fullName().firstName())
+                .isEqualTo("Changed");
+    }
+
+    @Test
+    public void shouldNotServeACachedCustomerDeletedBehindTheCache() {
+        transactionTemplate.executeWithoutResult(status -> entityRepository.deleteById(customer.id().value()));
+
+        Assertions.assertThat(customers.ofId(customer.id())).isEmpty();
+    }
+
+    @Test
+    public void shouldEvictCachedCustomerWhenItsSaveIsStale() {
+        Customer stale = customers.ofId(customer.id()).orElseThrow();
+        transactionTemplate.executeWithoutResult(status -> renameBehindTheCache("Changed"));
+
+        stale.changeName(new FullName("Alex", "Silva"));
+        Assertions.assertThatExceptionOfType(ObjectOptimisticLockingFailureException.class)
+                .isThrownBy(() -> customers.add(stale));
+
+        Assertions.assertThat(customers.ofId(customer.id()).orElseThrow().fullName().firstName())
+                .isEqualTo("Changed");
+    }
+
+    private void renameBehindTheCache(String firstName) {
+        CustomerPersistenceEntity persistenceEntity = entityRepository.findById(customer.id().value()).orElseThrow();
+        persistenceEntity.setFirstName(firstName);
+        entityRepository.saveAndFlush(persistenceEntity);
+    }
+
+}
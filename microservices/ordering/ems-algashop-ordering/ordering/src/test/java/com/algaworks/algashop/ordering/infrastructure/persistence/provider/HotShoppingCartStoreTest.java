@@ -0,0 +1,117 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import com.algaworks.algashop.ordering.domain.model.entity.ProductTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCart;
+import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCartTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Quantity;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.ShoppingCartId;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class HotShoppingCartStoreTest {
+
+    private final AggregateMetadata<ShoppingCart, ShoppingCartId> metadata =
+            new AggregateMetadataRegistry().of(ShoppingCart.class);
+
+    private HotShoppingCartStore newStore(int maxCarts, DataSize maxSize) {
+        return new HotShoppingCartStore(new SimpleMeterRegistry(), maxCarts, maxSize, true);
+    }
+
+    private ShoppingCart persistedCart() {
+        ShoppingCart shoppingCart = ShoppingCartTestDataBuilder.aShoppingCart().customerId(new CustomerId()).build();
+        metadata.version(shoppingCart, 0L);
+        shoppingCart.changes().clear();
+        return shoppingCart;
+    }
+
+    @Test
+    public void shouldServeStoredCartsByIdAndCustomer() {
+        HotShoppingCartStore store = newStore(10, DataSize.ofMegabytes(1));
+        ShoppingCart shoppingCart = persistedCart();
+
+        store.putAfterCommit(shoppingCart);
+
+        assertThat(store.ofId(shoppingCart.id())).hasValueSatisfying(stored -> {
+            assertThat(stored).isEqualTo(shoppingCart).isNotSameAs(shoppingCart);
+            assertThat(stored.items()).hasSameSizeAs(shoppingCart.items());
+            assertThat(stored.version()).isEqualTo(shoppingCart.version());
+        });
+        assertThat(store.ofCustomer(shoppingCart.customerId())).contains(shoppingCart);
+        assertThat(store.ofCustomer(new CustomerId())).isEmpty();
+    }
+
+    @Test
+    public void shouldRefuseToStartWithoutTheSingleWriter() {
+        assertThatIllegalStateException().isThrownBy(() ->
+                new HotShoppingCartStore(new SimpleMeterRegistry(), 10, DataSize.ofMegabytes(1), false));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedCartsBeyondCount() {
+        HotShoppingCartStore store = newStore(2, DataSize.ofMegabytes(1));
+        ShoppingCart first = persistedCart();
+        ShoppingCart second = persistedCart();
+        ShoppingCart third = persistedCart();
+
+        store.putAfterCommit(first);
+        store.putAfterCommit(second);
+        store.ofId(first.id());
+        store.putAfterCommit(third);
+
+        assertThat(store.ofId(first.id())).isPresent();
+        assertThat(store.ofId(second.id())).isEmpty();
+        assertThat(store.ofCustomer(second.customerId())).isEmpty();
+        assertThat(store.ofId(third.id())).isPresent();
+        assertThat(store.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldEvictCartsBeyondEstimatedBytes() {
+        ShoppingCart shoppingCart = persistedCart();
+        long cartBytes = HotShoppingCartStore.estimatedBytes(shoppingCart);
+        HotShoppingCartStore store = newStore(100, DataSize.ofBytes(cartBytes * 2));
+
+        store.putAfterCommit(shoppingCart);
+        store.putAfterCommit(persistedCart());
+        store.putAfterCommit(persistedCart());
+
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.estimatedBytes()).isEqualTo(cartBytes * 2);
+        assertThat(store.ofId(shoppingCart.id())).isEmpty();
+    }
+
+    @Test
+    public void shouldServeAFreshCartOnEveryHit() {
+        HotShoppingCartStore store = newStore(10, DataSize.ofMegabytes(1));
+        ShoppingCart shoppingCart = persistedCart();
+        int itemCount = shoppingCart.items().size();
+        store.putAfterCommit(shoppingCart);
+
+        shoppingCart.addItem(ProductTestDataBuilder.aProductAltMousePad().build(), new Quantity(1));
+        ShoppingCart first = store.ofId(shoppingCart.id()).orElseThrow();
+        first.addItem(ProductTestDataBuilder.aProductAltMousePad().build(), new Quantity(1));
+        ShoppingCart second = store.ofId(shoppingCart.id()).orElseThrow();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.items()).hasSize(itemCount);
+        assertThat(second.changes().hasChanges()).isFalse();
+    }
+
+    @Test
+    public void shouldEvictCartsHoldingRefreshedProduct() {
+        HotShoppingCartStore store = newStore(10, DataSize.ofMegabytes(1));
+        ShoppingCart shoppingCart = persistedCart();
+        store.putAfterCommit(shoppingCart);
+
+        store.evictHolding(ProductTestDataBuilder.DEFAULT_PRODUCT_ID);
+
+        assertThat(store.size()).isZero();
+        assertThat(store.estimatedBytes()).isZero();
+    }
+
+}
@@ -5,25 +5,44 @@ import com.algaworks.algashop.ordering.domain.model.entity.CustomerTestDataBuild
 import com.algaworks.algashop.ordering.domain.model.entity.Order;
 import com.algaworks.algashop.ordering.domain.model.entity.OrderStatus;
 import com.algaworks.algashop.ordering.domain.model.entity.OrderTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.repository.CursorPage;
+import com.algaworks.algashop.ordering.domain.model.repository.OrderFetchPlan;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.OrderId;
+import com.algaworks.algashop.ordering.infrastructure.persistence.SqlStatementCounter;
 import com.algaworks.algashop.ordering.infrastructure.persistence.assembler.CustomerPersistenceEntityAssembler;
 import com.algaworks.algashop.ordering.infrastructure.persistence.assembler.OrderPersistenceEntityAssembler;
 import com.algaworks.algashop.ordering.infrastructure.persistence.config.SpringDataAuditingConfig;
 import com.algaworks.algashop.ordering.infrastructure.persistence.disassembler.CustomerPersistenceEntityDisassembler;
 import com.algaworks.algashop.ordering.infrastructure.persistence.disassembler.OrderPersistenceEntityDisassembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.entity.CustomerPersistenceEntity;
 import com.algaworks.algashop.ordering.infrastructure.persistence.entity.OrderPersistenceEntity;
 import com.algaworks.algashop.ordering.infrastructure.persistence.repository.OrderPersistenceEntityRepository;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @DataJpaTest
 @Import({
+        AggregateMetadataRegistry.class,
         OrdersPersistenceProvider.class,
+        CustomerSalesSummaryProvider.class,
         OrderPersistenceEntityAssembler.class,
         OrderPersistenceEntityDisassembler.class,
         CustomersPersistenceProvider.class,
@@ -36,14 +55,20 @@ class OrdersPersistenceProviderIT {
     private OrdersPersistenceProvider persistenceProvider;
     private CustomersPersistenceProvider customersPersistenceProvider;
     private OrderPersistenceEntityRepository entityRepository;
+    private TestEntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
 
     @Autowired
     public OrdersPersistenceProviderIT(OrdersPersistenceProvider persistenceProvider,
                                        CustomersPersistenceProvider customersPersistenceProvider,
-                                       OrderPersistenceEntityRepository entityRepository) {
+                                       OrderPersistenceEntityRepository entityRepository,
+                                       TestEntityManager entityManager,
+                                       PlatformTransactionManager transactionManager) {
         this.persistenceProvider = persistenceProvider;
         this.customersPersistenceProvider = customersPersistenceProvider;
         this.entityRepository = entityRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @BeforeEach
@@ -83,6 +108,200 @@ class OrdersPersistenceProviderIT {
 
     }
 
+    @Test
+    public void shouldInsertBrandNewOrderWithoutReadingIt() {
+        Order order = OrderTestDataBuilder.anOrder().build();
+
+        SqlStatementCounter.reset();
+        persistenceProvider.add(order);
+
+        Assertions.assertThat(SqlStatementCounter.selects()).isZero();
+        Assertions.assertThat(order.version()).isZero();
+    }
+
+    @Test
+    public void shouldSkipWriteWhenOrderIsUnchanged() {
+        Order order = OrderTestDataBuilder.anOrder().build();
+        persistenceProvider.add(order);
+
+        SqlStatementCounter.reset();
+        persistenceProvider.add(order);
+
+        Assertions.assertThat(SqlStatementCounter.statements()).isEmpty();
+        Assertions.assertThat(order.version()).isZero();
+    }
+
+    @Test
+    public void shouldUpdateReadingOnlyTheMergeTarget() {
+        Order order = OrderTestDataBuilder.anOrder().status(OrderStatus.PLACED).build();
+        persistenceProvider.add(order);
+        entityManager.flush();
+        entityManager.clear();
+
+        order.markAsPaid();
+
+        SqlStatementCounter.reset();
+        persistenceProvider.add(order);
+
+        Assertions.assertThat(SqlStatementCounter.selects()).isEqualTo(1);
+        Assertions.assertThat(SqlStatementCounter.updatesOf("\"order\"")).isEqualTo(1);
+        Assertions.assertThat(order.version()).isEqualTo(1L);
+        Assertions.assertThat(entityRepository.findById(order.id().value().toLong()).orElseThrow().getStatus())
+                .isEqualTo(OrderStatus.PAID.name());
+    }
+
+    @Test
+    public void shouldRejectAStaleVersionWhenVersionDriven() {
+        Order order = OrderTestDataBuilder.anOrder().status(OrderStatus.PLACED).build();
+        persistenceProvider.add(order);
+        entityManager.flush();
+        entityManager.clear();
+
+        Order current = persistenceProvider.ofId(order.id()).orElseThrow();
+        current.markAsPaid();
+        persistenceProvider.add(current);
+        entityManager.flush();
+        entityManager.clear();
+
+        order.markAsPaid();
+
+        Assertions.assertThatExceptionOfType(ObjectOptimisticLockingFailureException.class)
+                .isThrownBy(() -> persistenceProvider.add(order));
+        Assertions.assertThat(order.version()).isZero();
+    }
+
+    @Test
+    public void shouldKeepCallerEntitiesManagedAfterAddAll() {
+        CustomerPersistenceEntity customerEntity = entityManager.find(CustomerPersistenceEntity.class,
+                CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID.value());
+
+        persistenceProvider.addAll(List.of(
+                OrderTestDataBuilder.anOrder().build(),
+                OrderTestDataBuilder.anOrder().build()
+        ));
+
+        Assertions.assertThat(entityManager.getEntityManager().contains(customerEntity)).isTrue();
+    }
+
+    @Test
+    public void shouldLoadOrdersOfYearWithOneStatementPerFetchPlan() {
+        placeOrders(3);
+
+        for (OrderFetchPlan fetchPlan : OrderFetchPlan.values()) {
+            entityManager.clear();
+            SqlStatementCounter.reset();
+
+            List<Order> orders = persistenceProvider.placedByCustomerInYear(
+                    CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID, Year.now(), fetchPlan);
+            orders.forEach(order -> order.items().size());
+
+            Assertions.assertThat(orders).hasSize(3);
+            Assertions.assertThat(SqlStatementCounter.statements()).as(fetchPlan.name()).hasSize(1);
+            if (fetchPlan == OrderFetchPlan.HEADER_ONLY) {
+                Assertions.assertThat(orders).allSatisfy(order -> Assertions.assertThat(order.items()).isEmpty());
+            } else {
+                Assertions.assertThat(orders).allSatisfy(order -> Assertions.assertThat(order.items()).isNotEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void shouldLoadOrderByIdWithOneStatementPerFetchPlan() {
+        Order order = placeOrders(1).getFirst();
+
+        for (OrderFetchPlan fetchPlan : OrderFetchPlan.values()) {
+            entityManager.clear();
+            SqlStatementCounter.reset();
+
+            Order loaded = persistenceProvider.ofId(order.id(), fetchPlan).orElseThrow();
+
+            Assertions.assertThat(SqlStatementCounter.statements()).as(fetchPlan.name()).hasSize(1);
+            Assertions.assertThat(loaded.customerId()).isEqualTo(order.customerId());
+            Assertions.assertThat(loaded.items()).hasSize(
+                    fetchPlan == OrderFetchPlan.HEADER_ONLY ? 0 : order.items().size());
+        }
+    }
+
+    @Test
+    public void shouldSaveHeaderChangesOfAHeaderOnlyOrder() {
+        Order order = placeOrders(1).getFirst();
+        Order header = persistenceProvider.ofId(order.id(), OrderFetchPlan.HEADER_ONLY).orElseThrow();
+        Assertions.assertThat(header.itemsLoaded()).isFalse();
+        header.markAsPaid();
+
+        persistenceProvider.add(header);
+        entityManager.flush();
+        entityManager.clear();
+
+        OrderPersistenceEntity saved = entityRepository.findById(order.id().value().toLong()).orElseThrow();
+        Assertions.assertThat(saved.getStatus()).isEqualTo(OrderStatus.PAID.name());
+        Assertions.assertThat(saved.getItems()).hasSameSizeAs(order.items());
+    }
+
+    @Test
+    public void shouldLoadManyOrdersByIdWithItemsInOneStatement() {
+        List<Order> placed = placeOrders(3);
+        List<OrderId> orderIds = new ArrayList<>(placed.stream().map(Order::id).toList());
+        orderIds.add(new OrderId());
+        SqlStatementCounter.reset();
+
+        Map<OrderId, Order> loaded = persistenceProvider.ofIds(orderIds);
+
+        Assertions.assertThat(SqlStatementCounter.statements()).hasSize(1);
+        Assertions.assertThat(loaded).containsOnlyKeys(orderIds.subList(0, 3));
+        Assertions.assertThat(loaded.values()).allSatisfy(order -> Assertions.assertThat(order.items()).isNotEmpty());
+    }
+
+    @Test
+    public void shouldPageCustomerOrdersByKeyset() {
+        List<OrderId> orderIds = placeOrders(5).stream().map(Order::id)
+                .sorted(Comparator.comparing(orderId -> orderId.value().toLong()))
+                .toList();
+
+        List<OrderId> pagedIds = new ArrayList<>();
+        OrderId cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<Order, OrderId> page = persistenceProvider.ofCustomer(
+                    CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID, cursor, 2);
+            page.content().forEach(order -> pagedIds.add(order.id()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        Assertions.assertThat(pages).isEqualTo(3);
+        Assertions.assertThat(pagedIds).containsExactlyElementsOf(orderIds);
+    }
+
+    @Test
+    public void shouldStreamCustomerOrdersDetachingThemAsItGoes() {
+        List<OrderId> orderIds = placeOrders(4).stream().map(Order::id)
+                .sorted(Comparator.comparing(orderId -> orderId.value().toLong()))
+                .toList();
+
+        List<Order> streamed;
+        try (Stream<Order> orders = persistenceProvider.streamOfCustomer(CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID)) {
+            streamed = orders.toList();
+        }
+
+        Assertions.assertThat(streamed).extracting(Order::id).containsExactlyElementsOf(orderIds);
+        Assertions.assertThat(streamed).allSatisfy(order -> Assertions.assertThat(order.items()).hasSize(2));
+        Assertions.assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount())
+                .isZero();
+    }
+
+    private List<Order> placeOrders(int count) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Order order = OrderTestDataBuilder.anOrder().status(OrderStatus.PLACED).build();
+            persistenceProvider.add(order);
+            orders.add(order);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return orders;
+    }
+
     @Test
     @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void shouldAddFindAndNotFailWhenNoTransaction() {
@@ -93,4 +312,26 @@ class OrdersPersistenceProviderIT {
                 ()-> persistenceProvider.ofId(order.id()).orElseThrow()
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void shouldWriteOrderAgainAfterSurroundingTransactionRolledBack() {
+        Order order = OrderTestDataBuilder.anOrder().status(OrderStatus.PLACED).build();
+        persistenceProvider.add(order);
+        order.markAsPaid();
+
+        Assertions.assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status -> {
+            persistenceProvider.add(order);
+            throw new IllegalStateException("rollback");
+        })).isInstanceOf(IllegalStateException.class);
+
+        Assertions.assertThat(order.version()).isZero();
+        Assertions.assertThat(order.changes().isDirty(Order.Field.STATUS)).isTrue();
+
+        persistenceProvider.add(order);
+
+        Assertions.assertThat(order.version()).isEqualTo(1L);
+        Assertions.assertThat(entityRepository.findById(order.id().value().toLong()).orElseThrow().getStatus())
+                .isEqualTo(OrderStatus.PAID.name());
+    }
+}
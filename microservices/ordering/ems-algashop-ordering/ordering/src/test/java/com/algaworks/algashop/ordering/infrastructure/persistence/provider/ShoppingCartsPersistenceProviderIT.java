@@ -1,26 +1,42 @@
 package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
 
 import com.algaworks.algashop.ordering.domain.model.entity.*;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Money;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Product;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Quantity;
 import com.algaworks.algashop.ordering.domain.model.valueobject.id.CustomerId;
+import com.algaworks.algashop.ordering.infrastructure.persistence.SqlStatementCounter;
 import com.algaworks.algashop.ordering.infrastructure.persistence.assembler.CustomerPersistenceEntityAssembler;
 import com.algaworks.algashop.ordering.infrastructure.persistence.assembler.ShoppingCartPersistenceEntityAssembler;
 import com.algaworks.algashop.ordering.infrastructure.persistence.config.SpringDataAuditingConfig;
 import com.algaworks.algashop.ordering.infrastructure.persistence.disassembler.CustomerPersistenceEntityDisassembler;
 import com.algaworks.algashop.ordering.infrastructure.persistence.disassembler.ShoppingCartPersistenceEntityDisassembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.entity.CustomerPersistenceEntity;
+import com.algaworks.algashop.ordering.infrastructure.persistence.entity.ShoppingCartItemPersistenceEntity;
+import com.algaworks.algashop.ordering.infrastructure.persistence.entity.ShoppingCartPersistenceEntity;
 import com.algaworks.algashop.ordering.infrastructure.persistence.repository.ShoppingCartPersistenceEntityRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.assertThatNoException;
 
 @DataJpaTest
 @Import({
+        AggregateMetadataRegistry.class,
         ShoppingCartsPersistenceProvider.class,
         ShoppingCartPersistenceEntityAssembler.class,
         ShoppingCartPersistenceEntityDisassembler.class,
@@ -34,14 +50,17 @@ class ShoppingCartsPersistenceProviderIT {
     private ShoppingCartsPersistenceProvider persistenceProvider;
     private CustomersPersistenceProvider customersPersistenceProvider;
     private ShoppingCartPersistenceEntityRepository entityRepository;
+    private TestEntityManager entityManager;
 
     @Autowired
     public ShoppingCartsPersistenceProviderIT(ShoppingCartsPersistenceProvider persistenceProvider,
                                               CustomersPersistenceProvider customersPersistenceProvider,
-                                              ShoppingCartPersistenceEntityRepository entityRepository) {
+                                              ShoppingCartPersistenceEntityRepository entityRepository,
+                                              TestEntityManager entityManager) {
         this.persistenceProvider = persistenceProvider;
         this.customersPersistenceProvider = customersPersistenceProvider;
         this.entityRepository = entityRepository;
+        this.entityManager = entityManager;
     }
 
     @BeforeEach
@@ -123,10 +142,124 @@ class ShoppingCartsPersistenceProviderIT {
         assertThat(finalCount).isEqualTo(initialCount + 2);
     }
 
+    @Test
+    public void shouldUpdateOnlyChangedItemsAndDeleteRemovedOnes() {
+        ShoppingCart shoppingCart = ShoppingCartTestDataBuilder.aShoppingCart().build();
+        persistenceProvider.add(shoppingCart);
+        entityManager.flush();
+        entityManager.clear();
+
+        ShoppingCart foundCart = persistenceProvider.ofId(shoppingCart.id()).orElseThrow();
+        Iterator<ShoppingCartItem> items = foundCart.items().iterator();
+        ShoppingCartItem changedItem = items.next();
+        ShoppingCartItem removedItem = items.next();
+
+        foundCart.changeItemQuantity(changedItem.id(), new Quantity(5));
+        foundCart.removeItem(removedItem.id());
+        persistenceProvider.add(foundCart);
+        entityManager.flush();
+        entityManager.clear();
+
+        ShoppingCartPersistenceEntity persistenceEntity = entityRepository.findById(shoppingCart.id().value()).orElseThrow();
+        Map<UUID, ShoppingCartItemPersistenceEntity> persistedItems = persistenceEntity.getItems().stream()
+                .collect(Collectors.toMap(ShoppingCartItemPersistenceEntity::getId, item -> item));
+
+        assertThat(persistedItems).containsOnlyKeys(changedItem.id().value());
+        assertThat(persistedItems.get(changedItem.id().value()).getQuantity()).isEqualTo(5);
+        assertThat(persistedItems.get(changedItem.id().value()).getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    public void shouldLoadCartOfCustomerWithItemsInASingleSelect() {
+        ShoppingCart shoppingCart = ShoppingCartTestDataBuilder.aShoppingCart().build();
+        persistenceProvider.add(shoppingCart);
+        entityManager.flush();
+        entityManager.clear();
+
+        SqlStatementCounter.reset();
+        ShoppingCart foundCart = persistenceProvider.ofCustomer(CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID).orElseThrow();
+
+        assertThat(foundCart.items()).hasSize(2);
+        assertThat(foundCart.customerId()).isEqualTo(CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID);
+        assertThat(SqlStatementCounter.statements()).hasSize(1);
+        assertThat(SqlStatementCounter.selects()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRefreshOnlyCartsHoldingChangedProductInBulk() {
+        ShoppingCart cartWithProduct = ShoppingCartTestDataBuilder.aShoppingCart().build();
+        persistenceProvider.add(cartWithProduct);
+
+        Customer otherCustomer = CustomerTestDataBuilder.existingCustomer().id(new CustomerId()).build();
+        customersPersistenceProvider.add(otherCustomer);
+        ShoppingCart cartWithoutProduct = ShoppingCartTestDataBuilder.aShoppingCart()
+                .customerId(otherCustomer.id()).withItems(false).build();
+        cartWithoutProduct.addItem(ProductTestDataBuilder.aProductAltRamMemory().build(), new Quantity(1));
+        persistenceProvider.add(cartWithoutProduct);
+        entityManager.flush();
+        entityManager.clear();
+
+        Product repricedProduct = ProductTestDataBuilder.aProduct()
+                .price(new Money("2500"))
+                .inStock(false)
+                .build();
+
+        assertThat(persistenceProvider.refreshItems(repricedProduct)).isEqualTo(1);
+        assertThat(persistenceProvider.refreshItems(repricedProduct)).isZero();
+
+        ShoppingCart refreshedCart = persistenceProvider.ofId(cartWithProduct.id()).orElseThrow();
+        cartWithProduct.refreshItem(repricedProduct);
+        assertThat(refreshedCart.totalAmount()).isEqualTo(cartWithProduct.totalAmount());
+        assertThat(refreshedCart.version()).isEqualTo(cartWithProduct.version() + 1);
+        assertThat(refreshedCart.containsUnavailableItems()).isTrue();
+        assertThat(refreshedCart.findItem(repricedProduct.id()).price()).isEqualTo(new Money("2500"));
+
+        ShoppingCart untouchedCart = persistenceProvider.ofId(cartWithoutProduct.id()).orElseThrow();
+        assertThat(untouchedCart.version()).isEqualTo(cartWithoutProduct.version());
+    }
+
+    @Test
+    public void shouldKeepTheCallerEntitiesManagedWhenRefreshingItems() {
+        ShoppingCart shoppingCart = ShoppingCartTestDataBuilder.aShoppingCart().build();
+        persistenceProvider.add(shoppingCart);
+        entityManager.flush();
+        entityManager.clear();
+
+        ShoppingCartPersistenceEntity managedCart = entityManager.find(
+                ShoppingCartPersistenceEntity.class, shoppingCart.id().value());
+        CustomerPersistenceEntity managedCustomer = entityManager.find(
+                CustomerPersistenceEntity.class, CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID.value());
+        Long loadedVersion = managedCart.getVersion();
+
+        Product repricedProduct = ProductTestDataBuilder.aProduct()
+                .price(new Money("2500"))
+                .build();
+        assertThat(persistenceProvider.refreshItems(repricedProduct)).isEqualTo(1);
+
+        assertThat(entityManager.getEntityManager().contains(managedCustomer)).isTrue();
+        assertThat(entityManager.getEntityManager().contains(managedCart)).isTrue();
+        assertThat(managedCart.getVersion()).isEqualTo(loadedVersion + 1);
+        assertThat(managedCart.getItems())
+                .filteredOn(item -> item.getProductId().equals(repricedProduct.id().value()))
+                .allSatisfy(item -> assertThat(item.getPrice()).isEqualByComparingTo("2500"));
+    }
+
+    @Test
+    public void shouldNotAllowASecondCartForTheSameCustomer() {
+        persistenceProvider.add(ShoppingCartTestDataBuilder.aShoppingCart().build());
+
+        ShoppingCart secondCart = ShoppingCartTestDataBuilder.aShoppingCart().build();
+
+        assertThatExceptionOfType(DataIntegrityViolationException.class)
+                .isThrownBy(() -> persistenceProvider.add(secondCart));
+    }
+
     @Test
     @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void shouldAddAndFindWhenNoTransaction() {
-        ShoppingCart shoppingCart = ShoppingCartTestDataBuilder.aShoppingCart().build();
+        Customer otherCustomer = CustomerTestDataBuilder.existingCustomer().id(new CustomerId()).build();
+        customersPersistenceProvider.add(otherCustomer);
+        ShoppingCart shoppingCart = ShoppingCartTestDataBuilder.aShoppingCart().customerId(otherCustomer.id()).build();
 
         persistenceProvider.add(shoppingCart);
 
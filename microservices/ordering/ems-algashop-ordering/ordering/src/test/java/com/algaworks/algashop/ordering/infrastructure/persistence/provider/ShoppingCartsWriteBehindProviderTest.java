@@ -0,0 +1,198 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import com.algaworks.algashop.ordering.domain.model.entity.ProductTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCart;
+import com.algaworks.algashop.ordering.domain.model.entity.ShoppingCartTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.valueobject.Quantity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+@ExtendWith(MockitoExtension.class)
+class ShoppingCartsWriteBehindProviderTest {
+
+    @Mock
+    private ShoppingCartsPersistenceProvider delegate;
+
+    @TempDir
+    private Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private ShoppingCartsWriteBehindProvider newProvider() {
+        return newProvider(10000, 5);
+    }
+
+    private ShoppingCartsWriteBehindProvider newProvider(int compactAfter, int maxAttempts) {
+        return new ShoppingCartsWriteBehindProvider(delegate, objectMapper, Duration.ofHours(1),
+                journal().toString(), false, compactAfter, maxAttempts, true);
+    }
+
+    private Path journal() {
+        return tempDir.resolve("carts.journal");
+    }
+
+    @Test
+    public void shouldRefuseToStartWithoutTheSingleWriter() {
+        assertThatIllegalStateException().isThrownBy(() ->
+                new ShoppingCartsWriteBehindProvider(delegate, objectMapper, Duration.ofHours(1),
+                        journal().toString(), false, 10000, 5, false));
+    }
+
+    @Test
+    public void shouldDeadLetterACartChangedOutsideTheBuffer() {
+        Mockito.doThrow(new DataIntegrityViolationException("duplicate")).when(delegate).addAll(Mockito.any());
+        Mockito.doThrow(new ObjectOptimisticLockingFailureException(ShoppingCart.class, "cart"))
+                .when(delegate).add(Mockito.any());
+        ShoppingCartsWriteBehindProvider provider = newProvider();
+        provider.add(ShoppingCartTestDataBuilder.aShoppingCart().build());
+
+        provider.flush();
+
+        assertThat(provider.pendingCount()).isZero();
+        assertThat(tempDir.resolve("carts.journal.dead")).exists();
+    }
+
+    @Test
+    public void shouldCoalesceBurstsIntoOneWrite() {
+        ShoppingCartsWriteBehindProvider provider = newProvider();
+        ShoppingCart shoppingCart = ShoppingCartTestDataBuilder.aShoppingCart().build();
+
+        provider.add(shoppingCart);
+        shoppingCart.addItem(ProductTestDataBuilder.aProductAltMousePad().build(), new Quantity(1));
+        provider.add(shoppingCart);
+        provider.add(shoppingCart);
+
+        assertThat(provider.ofId(shoppingCart.id())).contains(shoppingCart);
+        Mockito.verify(delegate, Mockito.never()).addAll(Mockito.any());
+
+        provider.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<ShoppingCart>> captor = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(delegate).addAll(captor.capture());
+        assertThat(captor.getValue()).singleElement()
+                .satisfies(flushed -> assertThat(flushed.items()).hasSameSizeAs(shoppingCart.items()));
+        assertThat(provider.pendingCount()).isZero();
+    }
+
+    @Test
+    public void shouldServeAFreshCopyOfABufferedCartOnEveryRead() {
+        ShoppingCartsWriteBehindProvider provider = newProvider();
+        ShoppingCart shoppingCart = ShoppingCartTestDataBuilder.aShoppingCart().build();
+        provider.add(shoppingCart);
+        int itemCount = shoppingCart.items().size();
+
+        ShoppingCart first = provider.ofId(shoppingCart.id()).orElseThrow();
+        first.addItem(ProductTestDataBuilder.aProductAltMousePad().build(), new Quantity(1));
+        ShoppingCart second = provider.ofCustomer(shoppingCart.customerId()).orElseThrow();
+
+        assertThat(first).isNotSameAs(shoppingCart).isNotSameAs(second);
+        assertThat(second.items()).hasSize(itemCount);
+    }
+
+    @Test
+    public void shouldBufferOnlyAfterTheCallerTransactionCommits() {
+        ShoppingCartsWriteBehindProvider provider = newProvider();
+        ShoppingCart committed = ShoppingCartTestDataBuilder.aShoppingCart().build();
+        ShoppingCart rolledBack = ShoppingCartTestDataBuilder.aShoppingCart().build();
+
+        addInTransaction(provider, committed, true);
+        addInTransaction(provider, rolledBack, false);
+
+        assertThat(provider.exists(committed.id())).isTrue();
+        assertThat(provider.pendingCount()).isOne();
+    }
+
+    @Test
+    public void shouldDeadLetterACartThatKeepsFailing() {
+        Mockito.doThrow(new DataIntegrityViolationException("duplicate")).when(delegate).addAll(Mockito.any());
+        Mockito.doThrow(new DataIntegrityViolationException("duplicate")).when(delegate).add(Mockito.any());
+        ShoppingCartsWriteBehindProvider provider = newProvider(10000, 2);
+        provider.add(ShoppingCartTestDataBuilder.aShoppingCart().build());
+
+        provider.flush();
+        assertThat(provider.pendingCount()).isOne();
+
+        provider.flush();
+        assertThat(provider.pendingCount()).isZero();
+        assertThat(tempDir.resolve("carts.journal.dead")).exists();
+    }
+
+    @Test
+    public void shouldCompactTheJournalWhileCartsStayBuffered() throws Exception {
+        ShoppingCartsWriteBehindProvider provider = newProvider(4, 5);
+        ShoppingCart shoppingCart = ShoppingCartTestDataBuilder.aShoppingCart().build();
+
+        for (int i = 0; i < 20; i++) {
+            shoppingCart.addItem(ProductTestDataBuilder.aProductAltMousePad().build(), new Quantity(1));
+            provider.add(shoppingCart);
+        }
+
+        assertThat(Files.readAllLines(journal())).hasSizeLessThan(4);
+
+        ShoppingCartsWriteBehindProvider restarted = newProvider(4, 5);
+        restarted.start();
+        assertThat(restarted.ofId(shoppingCart.id()).orElseThrow().totalItems())
+                .isEqualTo(shoppingCart.totalItems());
+        restarted.stop();
+    }
+
+    @Test
+    public void shouldReplayJournalAfterCrash() throws Exception {
+        ShoppingCart shoppingCart = ShoppingCartTestDataBuilder.aShoppingCart().build();
+        newProvider().add(shoppingCart);
+
+        ShoppingCartsWriteBehindProvider restarted = newProvider();
+        restarted.start();
+
+        ShoppingCart replayed = restarted.ofId(shoppingCart.id()).orElseThrow();
+        assertThat(replayed.items()).hasSameSizeAs(shoppingCart.items());
+        assertThat(replayed.totalAmount()).isEqualTo(shoppingCart.totalAmount());
+
+        restarted.stop();
+
+        Mockito.verify(delegate).addAll(List.of(replayed));
+        assertThat(restarted.pendingCount()).isZero();
+    }
+
+    private void addInTransaction(ShoppingCartsWriteBehindProvider provider, ShoppingCart shoppingCart, boolean commit) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            provider.add(shoppingCart);
+            assertThat(provider.exists(shoppingCart.id())).isFalse();
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            if (commit) {
+                TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+            }
+            TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, commit
+                    ? TransactionSynchronization.STATUS_COMMITTED
+                    : TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.provider;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    public void shouldShareOneLoadBetweenConcurrentCallers() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("customer", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "loaded";
+            }));
+            Assertions.assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+            CountDownLatch followersStarted = new CountDownLatch(7);
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                followers.add(executor.submit(() -> {
+                    followersStarted.countDown();
+                    return singleFlight.execute("customer", () -> {
+                        loads.incrementAndGet();
+                        return "loaded again";
+                    });
+                }));
+            }
+            Assertions.assertThat(followersStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(200);
+            release.countDown();
+
+            Assertions.assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+            for (Future<String> follower : followers) {
+                Assertions.assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("loaded");
+            }
+        }
+
+        Assertions.assertThat(loads.get()).isEqualTo(1);
+        Assertions.assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    @Test
+    public void shouldLoadAgainOnceFlightHasLanded() {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("customer", () -> "v" + loads.incrementAndGet());
+        String second = singleFlight.execute("customer", () -> "v" + loads.incrementAndGet());
+
+        Assertions.assertThat(second).isEqualTo("v2");
+        Assertions.assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    @Test
+    public void shouldNotJoinFlightThatStartedBeforeAWrite() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("customer", () -> {
+                loading.countDown();
+                await(release);
+                return "before write";
+            }));
+            Assertions.assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+            singleFlight.written();
+
+            Assertions.assertThat(singleFlight.execute("customer", () -> "after write")).isEqualTo("after write");
+            release.countDown();
+            Assertions.assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("before write");
+        }
+
+        Assertions.assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    @Test
+    public void shouldPropagateLeaderFailureToFollowers() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("customer", () -> {
+                loading.countDown();
+                await(release);
+                throw new IllegalStateException("database down");
+            }));
+            Assertions.assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<String> follower = executor.submit(() -> singleFlight.execute("customer", () -> "loaded"));
+            release.countDown();
+
+            Assertions.assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class);
+            String followerResult;
+            try {
+                followerResult = follower.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                Assertions.assertThat(e).hasCauseInstanceOf(IllegalStateException.class);
+                followerResult = null;
+            }
+            Assertions.assertThat(followerResult).isIn(null, "loaded");
+        }
+
+        Assertions.assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
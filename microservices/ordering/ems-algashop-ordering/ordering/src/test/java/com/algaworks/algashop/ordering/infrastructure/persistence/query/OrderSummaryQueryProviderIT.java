@@ -0,0 +1,107 @@
+package com.algaworks.algashop.ordering.infrastructure.persistence.query;
+
+import com.algaworks.algashop.ordering.application.OrderSummary;
+import com.algaworks.algashop.ordering.domain.model.entity.CustomerTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.entity.Order;
+import com.algaworks.algashop.ordering.domain.model.entity.OrderStatus;
+import com.algaworks.algashop.ordering.domain.model.entity.OrderTestDataBuilder;
+import com.algaworks.algashop.ordering.domain.model.repository.CursorPage;
+import com.algaworks.algashop.ordering.domain.model.valueobject.id.OrderId;
+import com.algaworks.algashop.ordering.infrastructure.persistence.SqlStatementCounter;
+import com.algaworks.algashop.ordering.infrastructure.persistence.assembler.CustomerPersistenceEntityAssembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.assembler.OrderPersistenceEntityAssembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.disassembler.CustomerPersistenceEntityDisassembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.disassembler.OrderPersistenceEntityDisassembler;
+import com.algaworks.algashop.ordering.infrastructure.persistence.provider.AggregateMetadataRegistry;
+import com.algaworks.algashop.ordering.infrastructure.persistence.provider.CustomerSalesSummaryProvider;
+import com.algaworks.algashop.ordering.infrastructure.persistence.provider.CustomersPersistenceProvider;
+import com.algaworks.algashop.ordering.infrastructure.persistence.provider.OrdersPersistenceProvider;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.Year;
+import java.util.List;
+
+@DataJpaTest
+@Import({
+        OrderSummaryQueryProvider.class,
+        AggregateMetadataRegistry.class,
+        OrdersPersistenceProvider.class,
+        CustomerSalesSummaryProvider.class,
+        OrderPersistenceEntityAssembler.class,
+        OrderPersistenceEntityDisassembler.class,
+        CustomersPersistenceProvider.class,
+        CustomerPersistenceEntityAssembler.class,
+        CustomerPersistenceEntityDisassembler.class
+})
+class OrderSummaryQueryProviderIT {
+
+    private final OrderSummaryQueryProvider queryProvider;
+    private final OrdersPersistenceProvider ordersPersistenceProvider;
+    private final CustomersPersistenceProvider customersPersistenceProvider;
+    private final TestEntityManager entityManager;
+
+    @Autowired
+    public OrderSummaryQueryProviderIT(OrderSummaryQueryProvider queryProvider,
+                                       OrdersPersistenceProvider ordersPersistenceProvider,
+                                       CustomersPersistenceProvider customersPersistenceProvider,
+                                       TestEntityManager entityManager) {
+        this.queryProvider = queryProvider;
+        this.ordersPersistenceProvider = ordersPersistenceProvider;
+        this.customersPersistenceProvider = customersPersistenceProvider;
+        this.entityManager = entityManager;
+    }
+
+    @BeforeEach
+    public void setup() {
+        if (!customersPersistenceProvider.exists(CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID)) {
+            customersPersistenceProvider.add(CustomerTestDataBuilder.existingCustomer().build());
+        }
+    }
+
+    @Test
+    public void shouldListSummariesWithoutLoadingItems() {
+        Order order = OrderTestDataBuilder.anOrder().status(OrderStatus.PLACED).build();
+        ordersPersistenceProvider.add(order);
+        ordersPersistenceProvider.add(OrderTestDataBuilder.anOrder().status(OrderStatus.PAID).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        SqlStatementCounter.reset();
+        List<OrderSummary> summaries = queryProvider.placedByCustomerInYear(
+                CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID, Year.now());
+
+        Assertions.assertThat(summaries).hasSize(2);
+        Assertions.assertThat(summaries).anySatisfy(summary -> {
+            Assertions.assertThat(summary.id()).isEqualTo(order.id().value().toLong());
+            Assertions.assertThat(summary.status()).isEqualTo(OrderStatus.PLACED.name());
+            Assertions.assertThat(summary.totalAmount()).isEqualByComparingTo(order.totalAmount().value());
+            Assertions.assertThat(summary.totalItems()).isEqualTo(order.totalItems().value());
+        });
+        Assertions.assertThat(SqlStatementCounter.statements()).hasSize(1);
+        Assertions.assertThat(SqlStatementCounter.statements().getFirst()).doesNotContain("order_item");
+    }
+
+    @Test
+    public void shouldPageSummariesByKeyset() {
+        for (int i = 0; i < 3; i++) {
+            ordersPersistenceProvider.add(OrderTestDataBuilder.anOrder().build());
+        }
+
+        CursorPage<OrderSummary, OrderId> first = queryProvider.ofCustomer(
+                CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID, null, 2);
+        CursorPage<OrderSummary, OrderId> second = queryProvider.ofCustomer(
+                CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID, first.nextCursor(), 2);
+
+        Assertions.assertThat(first.content()).hasSize(2);
+        Assertions.assertThat(first.hasNext()).isTrue();
+        Assertions.assertThat(second.content()).hasSize(1);
+        Assertions.assertThat(second.hasNext()).isFalse();
+    }
+
+}
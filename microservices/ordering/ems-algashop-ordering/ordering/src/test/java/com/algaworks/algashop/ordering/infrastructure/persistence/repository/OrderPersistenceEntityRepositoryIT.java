@@ -1,19 +1,25 @@
 package com.algaworks.algashop.ordering.infrastructure.persistence.repository;
 
 import com.algaworks.algashop.ordering.domain.model.entity.CustomerTestDataBuilder;
+import com.algaworks.algashop.ordering.infrastructure.persistence.SqlStatementCounter;
 import com.algaworks.algashop.ordering.infrastructure.persistence.config.SpringDataAuditingConfig;
 import com.algaworks.algashop.ordering.infrastructure.persistence.entity.CustomerPersistenceEntity;
 import com.algaworks.algashop.ordering.infrastructure.persistence.entity.CustomerPersistenceEntityTestDataBuilder;
 import com.algaworks.algashop.ordering.infrastructure.persistence.entity.OrderPersistenceEntity;
 import com.algaworks.algashop.ordering.infrastructure.persistence.entity.OrderPersistenceEntityTestDataBuilder;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @DataJpaTest
@@ -23,14 +29,17 @@ class OrderPersistenceEntityRepositoryIT {
 
     private final OrderPersistenceEntityRepository orderPersistenceEntityRepository;
     private final CustomerPersistenceEntityRepository customerPersistenceEntityRepository;
+    private final TestEntityManager testEntityManager;
 
     private CustomerPersistenceEntity customerPersistenceEntity;
 
     @Autowired
     public OrderPersistenceEntityRepositoryIT(OrderPersistenceEntityRepository orderPersistenceEntityRepository,
-                                              CustomerPersistenceEntityRepository customerPersistenceEntityRepository) {
+                                              CustomerPersistenceEntityRepository customerPersistenceEntityRepository,
+                                              TestEntityManager testEntityManager) {
         this.orderPersistenceEntityRepository = orderPersistenceEntityRepository;
         this.customerPersistenceEntityRepository = customerPersistenceEntityRepository;
+        this.testEntityManager = testEntityManager;
     }
 
     @BeforeEach
@@ -76,4 +85,52 @@ class OrderPersistenceEntityRepositoryIT {
         Assertions.assertThat(entity.getLastModifiedByUserId()).isNotNull();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldUseCustomerPlacedAtIndexForYearlyLookups() {
+        UUID customerId = CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID.value();
+        OffsetDateTime start = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+        OffsetDateTime end = OffsetDateTime.parse("2025-01-01T00:00:00Z");
+
+        SqlStatementCounter.reset();
+        orderPersistenceEntityRepository.placedByCustomerBetween(customerId, start, end);
+        Assertions.assertThat(SqlStatementCounter.statements()).hasSize(1);
+
+        String plan = explain(SqlStatementCounter.statements().getFirst(), customerId, start, end);
+
+        Assertions.assertThat(plan).containsIgnoringCase("idx_order_customer_id_placed_at");
+    }
+
+    @Test
+    public void shouldRangeFilterPlacedAtInsteadOfApplyingYearFunction() {
+        OrderPersistenceEntity entity = OrderPersistenceEntityTestDataBuilder.existingOrder()
+                .customer(customerPersistenceEntity)
+                .placedAt(OffsetDateTime.parse("2024-12-31T23:59:59Z"))
+                .build();
+        orderPersistenceEntityRepository.saveAndFlush(entity);
+
+        UUID customerId = CustomerTestDataBuilder.DEFAULT_CUSTOMER_ID.value();
+        OffsetDateTime start = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+        OffsetDateTime end = OffsetDateTime.parse("2025-01-01T00:00:00Z");
+
+        Assertions.assertThat(orderPersistenceEntityRepository.placedByCustomerBetween(customerId, start, end))
+                .extracting(OrderPersistenceEntity::getId)
+                .containsExactly(entity.getId());
+        Assertions.assertThat(orderPersistenceEntityRepository.placedByCustomerBetween(customerId, end, end.plusYears(1)))
+                .isEmpty();
+    }
+
+    private String explain(String sql, Object... parameters) {
+        return testEntityManager.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return resultSet.getString(1);
+                }
+            }
+        });
+    }
+
+}